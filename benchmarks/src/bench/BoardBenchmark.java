@@ -0,0 +1,105 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Board;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static puzzle.Board.LENGTH;
+
+/**
+ * validation, generation and parsing of single boards
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private Board puzzle;
+    private Board solved;
+    private Character[][] solvedGrid;
+    private Character[][] puzzleGrid;
+    private List<String> lines;
+
+    @Setup
+    public void setUp() throws Exception {
+        puzzle = Board.fromCells(Puzzles.MEDIUM.cells()[0]);
+        solved = Board.createBoard(true);
+        solvedGrid = solved.getTwoDBoard();
+        puzzleGrid = puzzle.getTwoDBoard();
+        lines = Puzzles.MEDIUM.lines(0);
+    }
+
+    /**
+     * every digit in every cell, 729 checks per operation
+     */
+    @Benchmark
+    public int isValidEntry() {
+        int valid = 0;
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                for (char digit = '1'; digit <= '9'; digit++) {
+                    if (puzzle.isValidEntry(digit, row, col)) {
+                        valid++;
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * same 729 checks through the static Character[][] version
+     */
+    @Benchmark
+    public int isValidEntryCharacterGrid() {
+        int valid = 0;
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                for (char digit = '1'; digit <= '9'; digit++) {
+                    if (Board.isValidEntry(puzzleGrid, digit, row, col)) {
+                        valid++;
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public boolean isSolved() {
+        return solved.isSolved();
+    }
+
+    @Benchmark
+    public boolean isSolvedCharacterGrid() {
+        return Board.isSolved(solvedGrid);
+    }
+
+    @Benchmark
+    public Board createSolvedBoard() throws Exception {
+        return Board.createBoard(true);
+    }
+
+    @Benchmark
+    public Board createPuzzle() throws Exception {
+        return Board.createBoard(false);
+    }
+
+    @Benchmark
+    public Board convertToBoard() throws Exception {
+        return Board.convertToBoard(lines);
+    }
+}
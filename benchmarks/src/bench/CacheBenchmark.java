@@ -0,0 +1,76 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Board;
+import puzzle.CanonicalForm;
+import puzzle.SolutionCache;
+import puzzle.Solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * canonical form cost and solving through a warm solution cache compared to solving from scratch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"EASY", "HARD", "PATHOLOGICAL"})
+    public Puzzles set;
+
+    private byte[][] cells;
+    private final Solver solver = new Solver();
+    private final Solver cached = new Solver(Solver.Algorithm.PROPAGATION, new SolutionCache(64));
+
+    @Setup
+    public void setUp() throws Exception {
+        cells = set.cells();
+        for (final byte[] puzzle : cells) {
+            cached.solve(Board.fromCells(puzzle));
+        }
+    }
+
+    @Benchmark
+    public int canonicalize() throws Exception {
+        int sum = 0;
+        for (final byte[] puzzle : cells) {
+            final CanonicalForm form = CanonicalForm.of(Board.fromCells(puzzle));
+            sum += form == null ? 0 : form.hashCode();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int solve() throws Exception {
+        return solveAll(solver);
+    }
+
+    @Benchmark
+    public int solveCached() throws Exception {
+        return solveAll(cached);
+    }
+
+    private int solveAll(final Solver target) throws Exception {
+        int solved = 0;
+        for (final byte[] puzzle : cells) {
+            final Board board = Board.fromCells(puzzle);
+            target.solve(board);
+            solved += board.isSolved() ? 1 : 0;
+        }
+        return solved;
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Board;
+import puzzle.Solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * uniqueness checks as used by the generator. run with -prof gc to see that
+ * countSolutions does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountSolutionsBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public Puzzles set;
+
+    private Board[] boards;
+    private final Solver solver = new Solver();
+
+    @Setup
+    public void setUp() throws Exception {
+        final byte[][] cells = set.cells();
+        boards = new Board[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            boards[i] = Board.fromCells(cells[i]);
+        }
+    }
+
+    @Benchmark
+    public int countUpToTwo() {
+        int sum = 0;
+        for (final Board board : boards) {
+            sum += solver.countSolutions(board, 2);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int countAllWithDancingLinks() {
+        int sum = 0;
+        for (final Board board : boards) {
+            sum += solver.forEachSolution(board, 2, null);
+        }
+        return sum;
+    }
+}
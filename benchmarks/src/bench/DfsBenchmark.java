@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the Node tree DFS debug mode. only the easy and medium sets, the others take far too long.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DfsBenchmark {
+
+    @Param({"EASY", "MEDIUM"})
+    public Puzzles set;
+
+    private byte[][] puzzles;
+    private final Solver solver = new Solver(Solver.Algorithm.DFS);
+
+    @Setup
+    public void setUp() {
+        puzzles = set.cells();
+    }
+
+    @Benchmark
+    public int solveSet() throws Exception {
+        return SolverBenchmark.solveAll(solver, puzzles);
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import puzzle.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * fixed puzzle sets so results can be compared between releases. do not edit the
+ * existing sets, add new ones instead.
+ */
+public enum Puzzles {
+    /* solved by singles */
+    EASY(
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "020810740700003100090002805009040087400208003160030200302700060005600008076051090"),
+    /* need a few guesses with singles only */
+    MEDIUM(
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+            "030050040008010500460000012070502080000603000040109030250000098001020600080060020",
+            "100920000524010000000000070050008102000000000402700090060000000000030945000071006"),
+    /* "AI Escargot", Arto Inkala's 2012 puzzle and a 17 clue puzzle */
+    HARD(
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000"),
+    /* built against backtracking, "Easter Monster", and one with many solutions and a huge dead subtree */
+    PATHOLOGICAL(
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+            "1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+            ".....6....59.....82....8....45........3........6..3.54...325..6..................");
+
+    private final String[] puzzles;
+
+    Puzzles(final String... puzzles) {
+        this.puzzles = puzzles;
+    }
+
+    /**
+     * @return one array of 81 digits per puzzle, 0 for empty cells
+     */
+    public byte[][] cells() {
+        final byte[][] retVal = new byte[puzzles.length][81];
+        for (int p = 0; p < puzzles.length; p++) {
+            for (int i = 0; i < 81; i++) {
+                final char ch = puzzles[p].charAt(i);
+                retVal[p][i] = (byte) (ch >= '1' && ch <= '9' ? ch - '0' : 0);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param index puzzle of the set
+     * @return the 9 lines read by Board.convertToBoard
+     */
+    public List<String> lines(final int index) {
+        final List<String> retVal = new ArrayList<>();
+        for (int row = 0; row < Board.LENGTH; row++) {
+            retVal.add(puzzles[index].substring(row * 9, row * 9 + 9).replace('.', ' ').replace('0', ' '));
+        }
+        return retVal;
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Board;
+import puzzle.Solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * solves every puzzle of a set per operation, including loading the board from its cells
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "PATHOLOGICAL"})
+    public Puzzles set;
+
+    @Param({"PROPAGATION", "DANCING_LINKS", "PARALLEL"})
+    public Solver.Algorithm algorithm;
+
+    private byte[][] puzzles;
+    private Solver solver;
+
+    @Setup
+    public void setUp() {
+        puzzles = set.cells();
+        solver = new Solver(algorithm);
+    }
+
+    @Benchmark
+    public int solveSet() throws Exception {
+        return solveAll(solver, puzzles);
+    }
+
+    static int solveAll(final Solver solver, final byte[][] puzzles) throws Exception {
+        int solved = 0;
+        for (final byte[] cells : puzzles) {
+            final Board board = Board.fromCells(cells);
+            solver.solve(board);
+            if (board.isSolved()) {
+                solved++;
+            }
+        }
+        return solved;
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.Board;
+import puzzle.GridVerifier;
+import puzzle.PackedPuzzleFile;
+
+import java.util.concurrent.TimeUnit;
+
+import static puzzle.Board.LENGTH;
+
+/**
+ * verification of completed grids, the Character[][] check one grid at a time against
+ * GridVerifier on packed records. every 8th grid has a broken cell. scores are per grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifyBenchmark {
+    private final static int GRIDS = 1024;
+
+    private final Character[][][] grids = new Character[GRIDS][][];
+    private final byte[] records = new byte[GRIDS * PackedPuzzleFile.RECORD_SIZE];
+    private final int[] results = new int[GRIDS];
+
+    @Setup
+    public void setUp() throws Exception {
+        final byte[] cells = new byte[LENGTH * LENGTH];
+        for (int n = 0; n < GRIDS; n++) {
+            grids[n] = Board.createBoard(true).getTwoDBoard();
+            if (n % 8 == 7) {
+                grids[n][n % LENGTH][(n / LENGTH) % LENGTH] = grids[n][n % LENGTH][(n / LENGTH + 1) % LENGTH];
+            }
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = (byte) (grids[n][i / LENGTH][i % LENGTH] - '0');
+            }
+            PackedPuzzleFile.pack(cells, records, n * PackedPuzzleFile.RECORD_SIZE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public int isSolvedCharacterGrid() {
+        int valid = 0;
+        for (final Character[][] grid : grids) {
+            valid += Board.isSolved(grid) ? 1 : 0;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public int verifyPacked() {
+        return GridVerifier.verifyAll(records, 0, GRIDS, results);
+    }
+}
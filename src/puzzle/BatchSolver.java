@@ -0,0 +1,201 @@
+package puzzle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * solves many puzzles on a fixed pool of worker threads. every worker keeps its own
+ * SearchEngine so the solve itself allocates nothing but the result. the input is pulled
+ * lazily and only a bounded window of puzzles is in flight, so inputs of any size run
+ * in constant memory. results are delivered on the calling thread, either in input order
+ * or in completion order. nothing is printed. optional SolveLimits bound every single
+ * puzzle, a puzzle that runs over them is reported as TIMED_OUT or CANCELLED.
+ */
+public class BatchSolver implements AutoCloseable {
+    /* puzzles in flight per worker thread */
+    private final static int WINDOW_PER_THREAD = 64;
+
+    /**
+     * work done on a worker thread for every item given to map
+     * @param <I> type of the items
+     * @param <T> type of the results
+     */
+    @FunctionalInterface
+    public interface Task<I, T> {
+        /**
+         * @param index position of the item in the input, starting at 0
+         * @param input the item
+         * @return result handed to the sink
+         */
+        T apply(long index, I input);
+    }
+
+    private final ExecutorService executor;
+    private final int window;
+    private final SolveLimits limits;
+
+    /**
+     * one worker per available processor
+     */
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads number of worker threads
+     */
+    public BatchSolver(final int threads) {
+        this(threads, SolveLimits.NONE);
+    }
+
+    /**
+     * @param threads number of worker threads
+     * @param limits bounds of each puzzle, the timeout starts when a worker picks the puzzle up
+     */
+    public BatchSolver(final int threads, final SolveLimits limits) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive but was " + threads);
+        }
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "sudoku-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        window = threads * WINDOW_PER_THREAD;
+        this.limits = limits;
+    }
+
+    /**
+     * solve every puzzle and collect the results in input order
+     * @param puzzles puzzles to solve, not modified
+     * @return one result per puzzle
+     * @throws Exception if a worker failed
+     */
+    public List<SolveResult> solveAll(final Iterable<Board> puzzles) throws Exception {
+        final List<SolveResult> retVal = new ArrayList<>();
+        solveAll(puzzles.iterator(), true, retVal::add);
+        return retVal;
+    }
+
+    /**
+     * solve every puzzle of a stream
+     * @param puzzles puzzles to solve, consumed lazily
+     * @param ordered true to receive results in input order, false for completion order
+     * @param sink receives every result on the calling thread
+     * @throws Exception if a worker failed
+     */
+    public void solveAll(final Stream<Board> puzzles, final boolean ordered,
+                         final Consumer<SolveResult> sink) throws Exception {
+        solveAll(puzzles.iterator(), ordered, sink);
+    }
+
+    /**
+     * solve every puzzle of an iterator
+     * @param puzzles puzzles to solve, consumed lazily
+     * @param ordered true to receive results in input order, false for completion order
+     * @param sink receives every result on the calling thread
+     * @throws Exception if a worker failed
+     */
+    public void solveAll(final Iterator<Board> puzzles, final boolean ordered,
+                         final Consumer<SolveResult> sink) throws Exception {
+        map(puzzles, ordered, this::solve, sink);
+    }
+
+    /**
+     * run any per item work on the worker threads with the same bounded window as solveAll,
+     * e.g. validating, rating or generating puzzles
+     * @param inputs items to work on, consumed lazily on the calling thread
+     * @param ordered true to receive results in input order, false for completion order
+     * @param work called on a worker thread with the position of the item and the item
+     * @param sink receives every result on the calling thread
+     * @param <I> type of the items
+     * @param <T> type of the results
+     * @throws Exception if a worker failed
+     */
+    public <I, T> void map(final Iterator<I> inputs, final boolean ordered,
+                           final Task<I, T> work, final Consumer<T> sink) throws Exception {
+        if (ordered) {
+            mapOrdered(inputs, work, sink);
+        } else {
+            mapUnordered(inputs, work, sink);
+        }
+    }
+
+    private <I, T> void mapOrdered(final Iterator<I> inputs, final Task<I, T> work,
+                                   final Consumer<T> sink) throws Exception {
+        final ArrayDeque<Future<T>> inFlight = new ArrayDeque<>(window);
+        long index = 0;
+        while (inputs.hasNext()) {
+            if (inFlight.size() == window) {
+                sink.accept(get(inFlight.poll()));
+            }
+            final I input = inputs.next();
+            final long inputIndex = index++;
+            inFlight.add(executor.submit(() -> work.apply(inputIndex, input)));
+        }
+        while (!inFlight.isEmpty()) {
+            sink.accept(get(inFlight.poll()));
+        }
+    }
+
+    private <I, T> void mapUnordered(final Iterator<I> inputs, final Task<I, T> work,
+                                     final Consumer<T> sink) throws Exception {
+        final CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        long index = 0;
+        while (inputs.hasNext()) {
+            if (inFlight == window) {
+                sink.accept(get(completion.take()));
+                inFlight--;
+            }
+            final I input = inputs.next();
+            final long inputIndex = index++;
+            completion.submit(() -> work.apply(inputIndex, input));
+            inFlight++;
+        }
+        for (; inFlight > 0; inFlight--) {
+            sink.accept(get(completion.take()));
+        }
+    }
+
+    /**
+     * runs on a worker thread
+     * @param index position of the puzzle in the input
+     * @param puzzle board to solve
+     * @return result of the solve
+     */
+    private SolveResult solve(final long index, final Board puzzle) {
+        final SearchEngine engine = SearchEngine.local();
+        final long start = System.nanoTime();
+        final SolveResult.Status status = engine.solve(puzzle.getBitBoard(), limits.start());
+        final Board solution = status == SolveResult.Status.SOLVED ? new Board(engine.getSolution()) : null;
+        final long nanos = System.nanoTime() - start;
+        return new SolveResult(index, status, solution, nanos, engine.getStats());
+    }
+
+    private static <T> T get(final Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw new Exception("batch worker failed", ex.getCause());
+        }
+    }
+
+    /**
+     * stops the worker threads
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
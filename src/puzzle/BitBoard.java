@@ -0,0 +1,271 @@
+package puzzle;
+
+import static puzzle.Board.LENGTH;
+
+/**
+ * primitive core of a 9x9 sudoku board. every cell is a byte (0 for empty, 1 - 9 otherwise)
+ * and each row, column and 3x3 box keeps an int bitmask of the digits already used in it.
+ * digit d is stored as bit (d - 1) so a full unit has the mask ALL_DIGITS.
+ * the masks are updated incrementally on every placement which makes checking an entry
+ * and checking for a solved board constant time operations.
+ */
+public final class BitBoard {
+    public final static int CELLS = LENGTH * LENGTH;
+    public final static int ALL_DIGITS = (1 << LENGTH) - 1;
+    public final static char EMPTY = ' ';
+
+    /* row, column and box of every cell index, so we never divide in the hot path */
+    final static int[] ROW = new int[CELLS];
+    final static int[] COL = new int[CELLS];
+    final static int[] BOX = new int[CELLS];
+    /* cells of the 9 rows, 9 columns and 9 boxes */
+    final static int[][] UNITS = new int[3 * LENGTH][LENGTH];
+    /* row, column and box unit of every cell as indexes into UNITS */
+    final static int[][] UNITS_OF = new int[CELLS][3];
+    /* the 20 other cells sharing a row, column or box with every cell: the 8 of the row,
+    the 8 of the column and then the 4 of the box that are in neither */
+    final static int[][] PEERS = new int[CELLS][2 * (LENGTH - 1) + 4];
+
+    final byte[] cells = new byte[CELLS];
+    final int[] rows = new int[LENGTH];
+    final int[] cols = new int[LENGTH];
+    final int[] boxes = new int[LENGTH];
+    int filled = 0;
+
+    /**
+     * creates an empty board
+     */
+    public BitBoard() {
+    }
+
+    /**
+     * copy constructor
+     * @param other board to copy
+     */
+    public BitBoard(final BitBoard other) {
+        copyFrom(other);
+    }
+
+    /**
+     * overwrite this board with the content of another one
+     * @param other board to copy
+     */
+    public void copyFrom(final BitBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, CELLS);
+        System.arraycopy(other.rows, 0, rows, 0, LENGTH);
+        System.arraycopy(other.cols, 0, cols, 0, LENGTH);
+        System.arraycopy(other.boxes, 0, boxes, 0, LENGTH);
+        filled = other.filled;
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return cell index between 0 and 80
+     */
+    public static int index(final int row, final int col) {
+        return row * LENGTH + col;
+    }
+
+    /**
+     * @param index cell index
+     * @return digit in the cell, 0 if empty
+     */
+    public int get(final int index) {
+        return cells[index];
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return digit in the cell, 0 if empty
+     */
+    public int get(final int row, final int col) {
+        return cells[index(row, col)];
+    }
+
+    /**
+     * digits that are not used yet by any of the units of the cell. filled cells have no candidates.
+     * @param index cell index
+     * @return bitmask of candidates
+     */
+    public int candidates(final int index) {
+        if (cells[index] != 0) {
+            return 0;
+        }
+        return ~(rows[ROW[index]] | cols[COL[index]] | boxes[BOX[index]]) & ALL_DIGITS;
+    }
+
+    /**
+     * determines if a digit can be written to a cell without breaking sudoku rules.
+     * a digit that is already in the cell is not a valid entry, same as the row check in Board.
+     * @param index cell index
+     * @param digit 1 - 9
+     * @return true if the digit is not used by the row, column or box of the cell
+     */
+    public boolean canPlace(final int index, final int digit) {
+        if (digit < 1 || digit > LENGTH) {
+            return false;
+        }
+        final int bit = 1 << (digit - 1);
+        return ((rows[ROW[index]] | cols[COL[index]] | boxes[BOX[index]]) & bit) == 0;
+    }
+
+    /**
+     * write a digit to a cell. 0 clears the cell, which is always allowed.
+     * a filled cell can be overwritten by a digit that is valid for it.
+     * @param index cell index
+     * @param digit 0 - 9
+     * @return true if the board was changed
+     */
+    public boolean set(final int index, final int digit) {
+        if (digit == 0) {
+            if (cells[index] != 0) {
+                remove(index);
+            }
+            return true;
+        }
+        if (!canPlace(index, digit)) {
+            return false;
+        }
+        if (cells[index] != 0) {
+            remove(index);
+        }
+        place(index, digit);
+        return true;
+    }
+
+    /**
+     * unchecked placement, caller guarantees that the cell is empty and the digit valid
+     * @param index cell index
+     * @param digit 1 - 9
+     */
+    void place(final int index, final int digit) {
+        final int bit = 1 << (digit - 1);
+        cells[index] = (byte) digit;
+        rows[ROW[index]] |= bit;
+        cols[COL[index]] |= bit;
+        boxes[BOX[index]] |= bit;
+        filled++;
+    }
+
+    /**
+     * unchecked removal, caller guarantees that the cell is filled
+     * @param index cell index
+     */
+    void remove(final int index) {
+        final int bit = ~(1 << (cells[index] - 1));
+        cells[index] = 0;
+        rows[ROW[index]] &= bit;
+        cols[COL[index]] &= bit;
+        boxes[BOX[index]] &= bit;
+        filled--;
+    }
+
+    /**
+     * since every placement is validated a full board is a solved board
+     * @return true if all cells are filled
+     */
+    public boolean isSolved() {
+        return filled == CELLS;
+    }
+
+    /**
+     * @return number of filled cells
+     */
+    public int filledCount() {
+        return filled;
+    }
+
+    /**
+     * @return copy of the cells, one byte per cell in row major order
+     */
+    public byte[] toBytes() {
+        final byte[] retVal = new byte[CELLS];
+        System.arraycopy(cells, 0, retVal, 0, CELLS);
+        return retVal;
+    }
+
+    /**
+     * adapter for the Character[][] representation used by the rest of the program
+     * @return a new two dimensional array
+     */
+    public Character[][] toCharacters() {
+        final Character[][] retVal = new Character[LENGTH][LENGTH];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[ROW[i]][COL[i]] = toChar(cells[i]);
+        }
+        return retVal;
+    }
+
+    /**
+     * load a Character[][] board
+     * @param input board to load
+     * @return the loaded board or null if the input breaks sudoku rules
+     */
+    public static BitBoard of(final Character[][] input) {
+        final BitBoard retVal = new BitBoard();
+        for (int i = 0; i < CELLS; i++) {
+            final Character ch = input[ROW[i]][COL[i]];
+            final int digit = ch == null ? -1 : toDigit(ch);
+            if (digit < 0 || !retVal.set(i, digit)) {
+                return null;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param digit 0 - 9
+     * @return char representation, blank for 0
+     */
+    public static char toChar(final int digit) {
+        return digit == 0 ? EMPTY : (char) ('0' + digit);
+    }
+
+    /**
+     * @param ch '1' - '9' or blank
+     * @return 1 - 9, 0 for blank and -1 for anything else
+     */
+    public static int toDigit(final char ch) {
+        if (ch == EMPTY) {
+            return 0;
+        }
+        if (ch >= '1' && ch <= '9') {
+            return ch - '0';
+        }
+        return -1;
+    }
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            ROW[i] = i / LENGTH;
+            COL[i] = i % LENGTH;
+            BOX[i] = (ROW[i] / 3) * 3 + COL[i] / 3;
+            UNITS[ROW[i]][COL[i]] = i;
+            UNITS[LENGTH + COL[i]][ROW[i]] = i;
+            UNITS[2 * LENGTH + BOX[i]][(ROW[i] % 3) * 3 + COL[i] % 3] = i;
+            UNITS_OF[i][0] = ROW[i];
+            UNITS_OF[i][1] = LENGTH + COL[i];
+            UNITS_OF[i][2] = 2 * LENGTH + BOX[i];
+        }
+        for (int i = 0; i < CELLS; i++) {
+            int count = 0;
+            for (int j = 0; j < CELLS; j++) {
+                if (j != i && ROW[j] == ROW[i]) {
+                    PEERS[i][count++] = j;
+                }
+            }
+            for (int j = 0; j < CELLS; j++) {
+                if (j != i && COL[j] == COL[i]) {
+                    PEERS[i][count++] = j;
+                }
+            }
+            for (int j = 0; j < CELLS; j++) {
+                if (BOX[j] == BOX[i] && ROW[j] != ROW[i] && COL[j] != COL[i]) {
+                    PEERS[i][count++] = j;
+                }
+            }
+        }
+    }
+}
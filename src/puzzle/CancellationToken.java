@@ -0,0 +1,34 @@
+package puzzle;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lets another thread stop running solves and watch their progress. pass the token in the
+ * SolveLimits of any number of solves, cancel() makes each of them return CANCELLED at its
+ * next check. a token can not be reset, use a new one per request.
+ */
+public final class CancellationToken {
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final LongAdder nodes = new LongAdder();
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * cheap enough to poll from a timer, the solves report at every check
+     * @return search nodes of all solves using this token so far, in steps of CHECK_INTERVAL
+     */
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    void addNodes(final long count) {
+        nodes.add(count);
+    }
+}
@@ -0,0 +1,388 @@
+package puzzle;
+
+import java.util.Arrays;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * minimal representative of a puzzle under the sudoku symmetry group: transposing, reordering
+ * the bands and the rows inside each band, reordering the stacks and the columns inside each
+ * stack, and relabeling the digits. all puzzles of one class get the same canonical cells, the
+ * form also keeps the transformation so a solution of the canonical puzzle can be mapped back
+ * to the caller's orientation.
+ *
+ * the canonical cells are the lexicographically smallest 81 digits (0 for empty) reachable by
+ * the group. for a fixed cell order the smallest relabeling numbers the digits in the order they
+ * first appear, so only the 2 x 1296 column orders are enumerated and the rows are chosen one at
+ * a time, keeping every partial transformation that ties for the smallest rows so far.
+ */
+public final class CanonicalForm {
+    /* puzzles with fewer clues never have a unique solution and tie in too many ways */
+    public final static int MIN_CLUES = 17;
+    /* partial transformations kept per row, more means the puzzle is too symmetric to bother */
+    private final static int MAX_STATES = 1 << 16;
+    /* column orders: 6 stack orders times 6 x 6 x 6 orders inside the stacks */
+    private final static int[][] COLUMN_ORDERS = new int[1296][];
+    private final static int[][] TRIPLES = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+    private final byte[] cells;
+    private final boolean transposed;
+    private final int[] rowOrder;
+    private final int[] colOrder;
+    /* canonical label of every original digit and the other way round */
+    private final int[] labels;
+    private final int[] digits;
+
+    private CanonicalForm(final byte[] cells, final boolean transposed, final int[] rowOrder,
+                          final int[] colOrder, final int[] labels) {
+        this.cells = cells;
+        this.transposed = transposed;
+        this.rowOrder = rowOrder;
+        this.colOrder = colOrder;
+        this.labels = labels;
+        digits = new int[LENGTH + 1];
+        for (int d = 1; d <= LENGTH; d++) {
+            digits[labels[d]] = d;
+        }
+    }
+
+    /**
+     * @param puzzle puzzle to canonicalize, its filled cells are the clues, not modified
+     * @return the canonical form, null if the puzzle has fewer than MIN_CLUES clues or is too
+     * symmetric to canonicalize cheaply
+     */
+    public static CanonicalForm of(final Board puzzle) {
+        return of(puzzle.getBitBoard());
+    }
+
+    /**
+     * @param puzzle puzzle to canonicalize, not modified
+     * @return the canonical form, null if the puzzle cannot be canonicalized
+     */
+    static CanonicalForm of(final BitBoard puzzle) {
+        if (puzzle.filledCount() < MIN_CLUES) {
+            return null;
+        }
+        return new Search(puzzle).run();
+    }
+
+    /**
+     * @return the canonical puzzle, 81 digits with 0 for empty cells
+     */
+    public byte[] getCells() {
+        return cells.clone();
+    }
+
+    /**
+     * @param cells 81 digits in the caller's orientation, e.g. a solution of the original puzzle
+     * @return the cells in canonical orientation and labels
+     */
+    public byte[] toCanonical(final byte[] cells) {
+        final byte[] retVal = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[i] = (byte) labels[cells[source(i)]];
+        }
+        return retVal;
+    }
+
+    /**
+     * @param canonical 81 digits in canonical orientation and labels, e.g. a cached solution
+     * @return the cells in the caller's orientation
+     */
+    public byte[] fromCanonical(final byte[] canonical) {
+        final byte[] retVal = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[source(i)] = (byte) digits[canonical[i]];
+        }
+        return retVal;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof CanonicalForm && Arrays.equals(cells, ((CanonicalForm) other).cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(CELLS);
+        for (final byte cell : cells) {
+            builder.append(cell == 0 ? '.' : (char) ('0' + cell));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param canonical canonical cell index
+     * @return original cell index
+     */
+    private int source(final int canonical) {
+        final int row = rowOrder[BitBoard.ROW[canonical]];
+        final int col = colOrder[BitBoard.COL[canonical]];
+        return transposed ? BitBoard.index(col, row) : BitBoard.index(row, col);
+    }
+
+    /**
+     * row by row search for the smallest canonical cells. a state is a partial transformation:
+     * the transpose flag and column order, the rows chosen so far and the digit labels given so far.
+     */
+    private static final class Search {
+        private final byte[][] grids = new byte[2][CELLS];
+        private final byte[] best = new byte[CELLS];
+
+        private int count = 0;
+        private int[] order = new int[64];
+        private long[] rows = new long[order.length];
+        private long[] maps = new long[order.length];
+
+        private int nextCount;
+        private int[] nextOrder = new int[order.length];
+        private long[] nextRows = new long[order.length];
+        private long[] nextMaps = new long[order.length];
+
+        Search(final BitBoard puzzle) {
+            for (int i = 0; i < CELLS; i++) {
+                grids[0][i] = (byte) puzzle.get(i);
+                grids[1][BitBoard.index(BitBoard.COL[i], BitBoard.ROW[i])] = (byte) puzzle.get(i);
+            }
+        }
+
+        CanonicalForm run() {
+            first();
+            for (int level = 1; level < LENGTH; level++) {
+                long bestRow = Long.MAX_VALUE;
+                nextCount = 0;
+                for (int s = 0; s < count; s++) {
+                    final byte[] grid = grids[order[s] / COLUMN_ORDERS.length];
+                    final int[] columns = COLUMN_ORDERS[order[s] % COLUMN_ORDERS.length];
+                    for (int row = 0; row < LENGTH; row++) {
+                        if (!canFollow(rows[s], level, row)) {
+                            continue;
+                        }
+                        long map = maps[s];
+                        long value = 0;
+                        boolean smaller = false;
+                        int j = 0;
+                        for (; j < LENGTH; j++) {
+                            final int digit = grid[row * LENGTH + columns[j]];
+                            int label = 0;
+                            if (digit != 0) {
+                                label = (int) (map >>> (4 * digit)) & 0xF;
+                                if (label == 0) {
+                                    label = (int) (map & 0xF) + 1;
+                                    map = (map & ~0xFL) | label | ((long) label << (4 * digit));
+                                }
+                            }
+                            value = (value << 4) | label;
+                            /* most rows lose against the best row within the first few cells */
+                            if (!smaller) {
+                                final long prefix = bestRow >>> (4 * (LENGTH - 1 - j));
+                                if (value > prefix) {
+                                    break;
+                                }
+                                smaller = value < prefix;
+                            }
+                        }
+                        if (j < LENGTH) {
+                            continue;
+                        }
+                        if (smaller) {
+                            bestRow = value;
+                            nextCount = 0;
+                        }
+                        if (nextCount == MAX_STATES) {
+                            return null;
+                        }
+                        add(order[s], rows[s] | ((long) row << (4 * level)), map);
+                    }
+                }
+                for (int j = 0; j < LENGTH; j++) {
+                    best[level * LENGTH + j] = (byte) ((bestRow >>> (4 * (LENGTH - 1 - j))) & 0xF);
+                }
+                swap();
+            }
+            final boolean transposed = order[0] >= COLUMN_ORDERS.length;
+            final int[] rowOrder = new int[LENGTH];
+            for (int level = 0; level < LENGTH; level++) {
+                rowOrder[level] = (int) (rows[0] >>> (4 * level)) & 0xF;
+            }
+            /* digits missing from the puzzle get the remaining labels in order */
+            final int[] labels = new int[LENGTH + 1];
+            int next = (int) (maps[0] & 0xF);
+            for (int d = 1; d <= LENGTH; d++) {
+                labels[d] = (int) (maps[0] >>> (4 * d)) & 0xF;
+                if (labels[d] == 0) {
+                    labels[d] = ++next;
+                }
+            }
+            return new CanonicalForm(best.clone(), transposed, rowOrder,
+                    COLUMN_ORDERS[order[0] % COLUMN_ORDERS.length], labels);
+        }
+
+        /**
+         * the labels of the first row are 1, 2, 3 ... in order, so the row only depends on which
+         * cells are empty: the stacks are ordered by clue count and the empty cells come first
+         * inside each stack. only the column orders giving the smallest such pattern are kept.
+         */
+        private void first() {
+            int smallest = Integer.MAX_VALUE;
+            for (int t = 0; t < 2; t++) {
+                for (int row = 0; row < LENGTH; row++) {
+                    smallest = Math.min(smallest, pattern(grids[t], row));
+                }
+            }
+            nextCount = 0;
+            for (int t = 0; t < 2; t++) {
+                for (int row = 0; row < LENGTH; row++) {
+                    if (pattern(grids[t], row) != smallest) {
+                        continue;
+                    }
+                    /* 3 bit clue mask of every stack under every order of its columns */
+                    final int[][] masks = new int[3][TRIPLES.length];
+                    for (int stack = 0; stack < 3; stack++) {
+                        for (int p = 0; p < TRIPLES.length; p++) {
+                            for (int k = 0; k < 3; k++) {
+                                final int col = stack * 3 + TRIPLES[p][k];
+                                masks[stack][p] = (masks[stack][p] << 1) | (grids[t][row * LENGTH + col] == 0 ? 0 : 1);
+                            }
+                        }
+                    }
+                    for (int p = 0; p < TRIPLES.length; p++) {
+                        final int[] stacks = TRIPLES[p];
+                        for (int p0 = 0; p0 < TRIPLES.length; p0++) {
+                            if (masks[stacks[0]][p0] != smallest >>> 6) {
+                                continue;
+                            }
+                            for (int p1 = 0; p1 < TRIPLES.length; p1++) {
+                                if (masks[stacks[1]][p1] != (smallest >>> 3 & 7)) {
+                                    continue;
+                                }
+                                for (int p2 = 0; p2 < TRIPLES.length; p2++) {
+                                    if (masks[stacks[2]][p2] == (smallest & 7)) {
+                                        start(t, row, ((p * 6 + p0) * 6 + p1) * 6 + p2);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            int label = 0;
+            for (int j = 0; j < LENGTH; j++) {
+                best[j] = (byte) ((smallest >>> (LENGTH - 1 - j) & 1) == 0 ? 0 : ++label);
+            }
+            swap();
+        }
+
+        /**
+         * add the state with the given first row and column order
+         * @param t 1 if the grid is transposed
+         * @param row first row
+         * @param o index into COLUMN_ORDERS
+         */
+        private void start(final int t, final int row, final int o) {
+            long map = 0;
+            for (final int col : COLUMN_ORDERS[o]) {
+                final int digit = grids[t][row * LENGTH + col];
+                if (digit != 0) {
+                    final long label = (map & 0xF) + 1;
+                    map = (map & ~0xFL) | label | (label << (4 * digit));
+                }
+            }
+            add(t * COLUMN_ORDERS.length + o, row, map);
+        }
+
+        /**
+         * @param grid cells, possibly transposed
+         * @param row row of the grid
+         * @return smallest mask of the row's clues over all column orders, first column is the top bit
+         */
+        private static int pattern(final byte[] grid, final int row) {
+            final int[] counts = new int[3];
+            for (int col = 0; col < LENGTH; col++) {
+                if (grid[row * LENGTH + col] != 0) {
+                    counts[col / 3]++;
+                }
+            }
+            Arrays.sort(counts);
+            int retVal = 0;
+            for (final int count : counts) {
+                retVal = (retVal << 3) | ((1 << count) - 1);
+            }
+            return retVal;
+        }
+
+        /**
+         * rows 0 - 2 of the result come from one band, rows 3 - 5 from another and so on
+         * @param chosen rows chosen so far, 4 bits each
+         * @param level number of rows chosen so far
+         * @param row candidate for the next row
+         */
+        private static boolean canFollow(final long chosen, final int level, final int row) {
+            final int band = row / 3;
+            final int inBand = level % 3;
+            if (inBand != 0) {
+                final int previous = (int) (chosen >>> (4 * (level - 1))) & 0xF;
+                if (previous / 3 != band || previous == row) {
+                    return false;
+                }
+                return inBand == 1 || ((chosen >>> (4 * (level - 2))) & 0xF) != row;
+            }
+            for (int k = 0; k < level; k += 3) {
+                if (((chosen >>> (4 * k)) & 0xF) / 3 == band) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(final int transform, final long chosen, final long map) {
+            if (nextCount == nextOrder.length) {
+                final int length = Math.min(2 * nextOrder.length, MAX_STATES);
+                nextOrder = Arrays.copyOf(nextOrder, length);
+                nextRows = Arrays.copyOf(nextRows, length);
+                nextMaps = Arrays.copyOf(nextMaps, length);
+            }
+            nextOrder[nextCount] = transform;
+            nextRows[nextCount] = chosen;
+            nextMaps[nextCount] = map;
+            nextCount++;
+        }
+
+        private void swap() {
+            final int[] o = order;
+            order = nextOrder;
+            nextOrder = o;
+            final long[] r = rows;
+            rows = nextRows;
+            nextRows = r;
+            final long[] m = maps;
+            maps = nextMaps;
+            nextMaps = m;
+            count = nextCount;
+        }
+    }
+
+    static {
+        int n = 0;
+        for (final int[] stacks : TRIPLES) {
+            for (final int[] first : TRIPLES) {
+                for (final int[] second : TRIPLES) {
+                    for (final int[] third : TRIPLES) {
+                        final int[][] inside = {first, second, third};
+                        final int[] columns = new int[LENGTH];
+                        for (int j = 0; j < LENGTH; j++) {
+                            columns[j] = stacks[j / 3] * 3 + inside[j / 3][j % 3];
+                        }
+                        COLUMN_ORDERS[n++] = columns;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package puzzle;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * headless entry point, solves, validates, rates or generates puzzles on a BatchSolver pool.
+ * puzzles are streamed from a file or stdin in any layout PuzzleReader understands or from a
+ * packed file, results are streamed to stdout or a file. a summary with the throughput and
+ * latency percentiles goes to stderr, so stdout only carries results.
+ */
+public class CommandLine {
+    private final static String USAGE = String.join(System.lineSeparator(),
+            "usage: java -jar sudoku.jar <command> [options] [input]",
+            "commands:",
+            "  solve      solve every puzzle",
+            "  validate   check every puzzle for broken rules and a unique solution",
+            "  rate       rate every puzzle by the hardest human technique it needs",
+            "  generate   generate new puzzles with a unique solution",
+            "  serve      run the SolverServer http service until the process is stopped",
+            "options:",
+            "  -t, --threads N       worker threads, default one per processor",
+            "  -f, --format F        line, grid, csv or packed, default line",
+            "  -o, --output FILE     write the results to FILE instead of stdout, needed for packed",
+            "  -a, --algorithm A     solve backend: PROPAGATION, DANCING_LINKS, PARALLEL or DFS",
+            "  --timeout MS          solve: give up on a puzzle after MS milliseconds",
+            "  --max-nodes N         solve: give up on a puzzle after N search nodes",
+            "  -n, --count N         generate: number of puzzles, default 1",
+            "  -d, --difficulty D    generate: EASY, MEDIUM, HARD or EXPERT, default MEDIUM",
+            "  --seed S              generate: reproducible output for the same seed and count",
+            "  --unordered           write results as they complete instead of in input order",
+            "  -q, --quiet           no summary",
+            "  -p, --port N          serve: port to listen on, default 8080",
+            "  --bind ADDRESS        serve: address to listen on, default localhost",
+            "  --capacity N          serve: requests admitted at a time, default 64",
+            "input: a puzzle file, stdin if it is missing or -");
+
+    private enum Command { SOLVE, VALIDATE, RATE, GENERATE, SERVE }
+
+    private enum Format { LINE, GRID, CSV, PACKED }
+
+    private final static ThreadLocal<LogicalSolver> RATERS = ThreadLocal.withInitial(LogicalSolver::new);
+    private final static ThreadLocal<Generator> GENERATORS = ThreadLocal.withInitial(Generator::new);
+
+    private Command command;
+    private Format format = Format.LINE;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path input = null;
+    private Path output = null;
+    private Solver.Algorithm algorithm = Solver.Algorithm.PROPAGATION;
+    private SolveLimits limits = SolveLimits.NONE;
+    private long count = 1;
+    private Generator.Difficulty difficulty = Generator.Difficulty.MEDIUM;
+    private Long seed = null;
+    private boolean ordered = true;
+    private boolean quiet = false;
+    private int port = 8080;
+    private String bind = "localhost";
+    private int capacity = 64;
+
+    /* outcomes by category and latencies, only touched on the calling thread */
+    private final Map<String, Long> outcomes = new LinkedHashMap<>();
+    private final Histogram latencies = new Histogram();
+
+    /**
+     * result of one item, made on a worker thread
+     */
+    private static final class Outcome {
+        /* cells written by the packed format */
+        final byte[] cells;
+        final String text;
+        final String category;
+        final long nanos;
+
+        Outcome(final byte[] cells, final String text, final String category, final long nanos) {
+            this.cells = cells;
+            this.text = text;
+            this.category = category;
+            this.nanos = nanos;
+        }
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * @param args command, options and input file
+     * @param in read when no input file is given
+     * @param out receives the results when no output file is given
+     * @param err receives the summary and error messages
+     * @return exit code, 0 on success, 1 if the run failed and 2 for a usage error
+     */
+    public static int run(final String[] args, final InputStream in, final PrintStream out, final PrintStream err) {
+        final CommandLine cli = new CommandLine();
+        try {
+            cli.parse(args);
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            cli.execute(in, out, err);
+            return 0;
+        } catch (Exception ex) {
+            err.println(cli.command.name().toLowerCase(Locale.ROOT) + " failed: "
+                    + (ex.getCause() == null ? ex : ex.getCause()));
+            return 1;
+        }
+    }
+
+    /**
+     * @param args command line
+     * @throws IllegalArgumentException if the command line is not valid
+     */
+    private void parse(final String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("no command given");
+        }
+        command = parseEnum(Command.class, args[0], "command");
+        for (int i = 1; i < args.length; i++) {
+            final String arg = args[i];
+            switch (arg) {
+                case "-t":
+                case "--threads":
+                    threads = (int) parseLong(arg, value(args, ++i, arg), 1);
+                    break;
+                case "-f":
+                case "--format":
+                    format = parseEnum(Format.class, value(args, ++i, arg), "format");
+                    break;
+                case "-o":
+                case "--output":
+                    output = Paths.get(value(args, ++i, arg));
+                    break;
+                case "-a":
+                case "--algorithm":
+                    algorithm = parseEnum(Solver.Algorithm.class, value(args, ++i, arg), "algorithm");
+                    break;
+                case "--timeout":
+                    limits = limits.withTimeout(parseLong(arg, value(args, ++i, arg), 1), TimeUnit.MILLISECONDS);
+                    break;
+                case "--max-nodes":
+                    limits = limits.withMaxNodes(parseLong(arg, value(args, ++i, arg), 1));
+                    break;
+                case "-n":
+                case "--count":
+                    count = parseLong(arg, value(args, ++i, arg), 0);
+                    break;
+                case "-d":
+                case "--difficulty":
+                    difficulty = parseEnum(Generator.Difficulty.class, value(args, ++i, arg), "difficulty");
+                    break;
+                case "--seed":
+                    seed = parseLong(arg, value(args, ++i, arg), Long.MIN_VALUE);
+                    break;
+                case "--unordered":
+                    ordered = false;
+                    break;
+                case "-q":
+                case "--quiet":
+                    quiet = true;
+                    break;
+                case "-p":
+                case "--port":
+                    port = (int) parseLong(arg, value(args, ++i, arg), 0);
+                    break;
+                case "--bind":
+                    bind = value(args, ++i, arg);
+                    break;
+                case "--capacity":
+                    capacity = (int) parseLong(arg, value(args, ++i, arg), 1);
+                    break;
+                default:
+                    if (arg.startsWith("-") && !arg.equals("-")) {
+                        throw new IllegalArgumentException("unknown option " + arg);
+                    }
+                    if (input != null || command == Command.GENERATE || command == Command.SERVE) {
+                        throw new IllegalArgumentException("unexpected argument " + arg);
+                    }
+                    input = arg.equals("-") ? null : Paths.get(arg);
+            }
+        }
+        if (format == Format.PACKED && output == null) {
+            throw new IllegalArgumentException("the packed format needs an output file");
+        }
+    }
+
+    private void execute(final InputStream in, final PrintStream out, final PrintStream err) throws Exception {
+        if (command == Command.SERVE) {
+            serve(err);
+            return;
+        }
+        final long start = System.nanoTime();
+        try (BatchSolver pool = new BatchSolver(threads);
+             Sink sink = output == null ? new Sink(out) : new Sink(output, format)) {
+            if (format == Format.CSV) {
+                sink.write(header());
+            }
+            if (command == Command.GENERATE) {
+                pool.map(new Counter(count), ordered, this::generate, outcome -> accept(outcome, sink));
+            } else {
+                try (Source source = Source.open(input, in)) {
+                    pool.map(source, ordered, this::work, outcome -> accept(outcome, sink));
+                }
+            }
+        }
+        if (!quiet) {
+            err.println(summary(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * runs the server until the jvm is stopped
+     */
+    private void serve(final PrintStream err) throws Exception {
+        final SolverServer server = new SolverServer(new InetSocketAddress(bind, port), threads, capacity, limits);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            stopped.countDown();
+        }));
+        server.start();
+        err.println("serving on " + bind + ":" + server.getPort());
+        stopped.await();
+    }
+
+    /**
+     * runs on a worker thread
+     * @param index position of the puzzle in the input
+     * @param cells puzzle, 81 digits with 0 for empty cells
+     * @return what to write for the puzzle
+     */
+    private Outcome work(final long index, final byte[] cells) {
+        final long start = System.nanoTime();
+        final Board board = new Board();
+        if (!board.load(cells)) {
+            return outcome(cells, cells, "invalid", "invalid", start);
+        }
+        switch (command) {
+            case VALIDATE: {
+                final int solutions = new Solver().countSolutions(board, 2);
+                final String verdict = solutions == 0 ? "unsolvable" : solutions == 1 ? "valid" : "multiple";
+                return outcome(cells, cells, verdict, verdict, start);
+            }
+            case RATE: {
+                final LogicalSolver.Rating rating = RATERS.get().rate(board);
+                //a full board needs no technique at all
+                final String category = !rating.isSolved() ? "unsolvable"
+                        : rating.getHardest() == null ? "solved" : rating.getHardest().name().toLowerCase(Locale.ROOT);
+                final String text = format == Format.CSV
+                        ? rating.getScore() + "," + category + "," + rating.isLogical()
+                        : rating.getScore() + " " + category;
+                return outcome(cells, cells, text, category, start);
+            }
+            default: {
+                final SolveResult result = new Solver(algorithm).solve(board, limits);
+                final String status = result.getStatus().name().toLowerCase(Locale.ROOT);
+                final byte[] solved = board.getBitBoard().toBytes();
+                if (format == Format.CSV) {
+                    return outcome(solved, cells, toLine(solved) + "," + status + ","
+                            + TimeUnit.NANOSECONDS.toMicros(result.getNanos()) + "," + result.getNodes(), status, start);
+                }
+                return outcome(solved, solved, result.isSolved() ? null : status, status, start);
+            }
+        }
+    }
+
+    /**
+     * runs on a worker thread
+     * @param index number of the puzzle
+     * @param ignored nothing
+     * @return the new puzzle
+     */
+    private Outcome generate(final long index, final Long ignored) {
+        final long start = System.nanoTime();
+        final Generator generator = seed == null ? GENERATORS.get() : new Generator(new Random(seed + index));
+        final byte[] cells = generator.generate(difficulty).getBitBoard().toBytes();
+        int clues = 0;
+        for (final byte cell : cells) {
+            clues += cell == 0 ? 0 : 1;
+        }
+        return outcome(cells, cells, format == Format.CSV ? String.valueOf(clues) : null,
+                difficulty.name().toLowerCase(Locale.ROOT), start);
+    }
+
+    /**
+     * @param cells cells for the packed format
+     * @param shown cells written by the text formats
+     * @param note written after the cells, null for none
+     * @param category what the summary counts the puzzle as
+     * @param start System.nanoTime() when the work started
+     * @return the outcome
+     */
+    private Outcome outcome(final byte[] cells, final byte[] shown, final String note,
+                            final String category, final long start) {
+        final String text;
+        switch (format) {
+            case GRID:
+                text = toGrid(shown) + (note == null ? "" : "# " + note + System.lineSeparator());
+                break;
+            case CSV:
+                text = toLine(shown) + (note == null ? "" : "," + note);
+                break;
+            default:
+                text = toLine(shown) + (note == null ? "" : " " + note);
+        }
+        return new Outcome(cells, text, category, System.nanoTime() - start);
+    }
+
+    /**
+     * runs on the calling thread
+     */
+    private void accept(final Outcome outcome, final Sink sink) {
+        outcomes.merge(outcome.category, 1L, Long::sum);
+        latencies.record(outcome.nanos);
+        try {
+            if (format == Format.PACKED) {
+                sink.write(outcome.cells);
+            } else {
+                sink.write(outcome.text);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String header() {
+        switch (command) {
+            case SOLVE:
+                return "puzzle,solution,status,micros,nodes";
+            case VALIDATE:
+                return "puzzle,verdict";
+            case RATE:
+                return "puzzle,score,hardest,logical";
+            default:
+                return "puzzle,clues";
+        }
+    }
+
+    /**
+     * @param nanos wall time of the run
+     * @return one line with the outcome counts, the throughput and the latency percentiles
+     */
+    private String summary(final long nanos) {
+        final long total = latencies.getCount();
+        final double seconds = nanos / 1e9;
+        final StringBuilder builder = new StringBuilder();
+        builder.append(command.name().toLowerCase(Locale.ROOT)).append(": ").append(total).append(" puzzles in ")
+                .append(String.format(Locale.ROOT, "%.3fs, %.1f/s on %d threads", seconds,
+                        seconds == 0 ? 0 : total / seconds, threads));
+        for (final Map.Entry<String, Long> entry : outcomes.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append(' ').append(entry.getValue());
+        }
+        builder.append(", latency p50 ").append(micros(latencies.getPercentile(50)))
+                .append(" p90 ").append(micros(latencies.getPercentile(90)))
+                .append(" p99 ").append(micros(latencies.getPercentile(99)))
+                .append(" max ").append(micros(latencies.getMax()));
+        return builder.toString();
+    }
+
+    private static String micros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+    }
+
+    /**
+     * @param cells 81 digits
+     * @return one line, '.' for empty cells
+     */
+    static String toLine(final byte[] cells) {
+        final char[] retVal = new char[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[i] = cells[i] == 0 ? '.' : (char) ('0' + cells[i]);
+        }
+        return new String(retVal);
+    }
+
+    /**
+     * @param cells 81 digits
+     * @return 9 lines and an empty line, '.' for empty cells
+     */
+    private static String toGrid(final byte[] cells) {
+        final String line = toLine(cells);
+        final StringBuilder builder = new StringBuilder();
+        for (int row = 0; row < LENGTH; row++) {
+            builder.append(line, row * LENGTH, (row + 1) * LENGTH).append(System.lineSeparator());
+        }
+        return builder.append(System.lineSeparator()).toString();
+    }
+
+    private static String value(final String[] args, final int i, final String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[i];
+    }
+
+    private static long parseLong(final String option, final String value, final long min) {
+        try {
+            final long retVal = Long.parseLong(value);
+            if (retVal < min) {
+                throw new IllegalArgumentException(option + " must be at least " + min + " but was " + value);
+            }
+            return retVal;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(option + " needs a number but was " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(final Class<E> type, final String value, final String what) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("unknown " + what + " " + value);
+        }
+    }
+
+    /**
+     * numbers 0 ... count - 1 as the input of generate
+     */
+    private static final class Counter implements Iterator<Long> {
+        private final long count;
+        private long next = 0;
+
+        Counter(final long count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return next++;
+        }
+    }
+
+    /**
+     * raw puzzles of a text or packed file, rule breaking puzzles included
+     */
+    private static final class Source implements Iterator<byte[]>, Closeable {
+        private final PuzzleReader reader;
+        private final PackedPuzzleFile packed;
+        private long position = 0;
+        private byte[] pending = null;
+
+        private Source(final PuzzleReader reader, final PackedPuzzleFile packed) {
+            this.reader = reader;
+            this.packed = packed;
+        }
+
+        /**
+         * @param path file to read, null for the stream
+         * @param in read if path is null
+         * @return source of the puzzles
+         * @throws IOException if the file cannot be opened
+         */
+        static Source open(final Path path, final InputStream in) throws IOException {
+            if (path == null) {
+                return new Source(new PuzzleReader(in), null);
+            }
+            if (isPacked(path)) {
+                return new Source(null, new PackedPuzzleFile(path));
+            }
+            return new Source(PuzzleReader.open(path), null);
+        }
+
+        private static boolean isPacked(final Path path) throws IOException {
+            try (DataInputStream data = new DataInputStream(Files.newInputStream(path))) {
+                return Files.size(path) >= PackedPuzzleFile.HEADER_SIZE && data.readInt() == PackedPuzzleFile.MAGIC;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending != null) {
+                return true;
+            }
+            final byte[] cells = new byte[CELLS];
+            if (packed != null) {
+                if (position == packed.size()) {
+                    return false;
+                }
+                packed.read(position++, cells);
+            } else {
+                try {
+                    if (!reader.read(cells)) {
+                        return false;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            pending = cells;
+            return true;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final byte[] retVal = pending;
+            pending = null;
+            return retVal;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (packed != null) {
+                packed.close();
+            } else {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * text lines or packed records to a stream or a file
+     */
+    private static final class Sink implements Closeable {
+        private final Writer writer;
+        private final PackedPuzzleWriter packed;
+        private final PrintStream stream;
+
+        /**
+         * @param out stream that receives text, flushed but not closed by close()
+         */
+        Sink(final PrintStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            packed = null;
+            stream = out;
+        }
+
+        Sink(final Path path, final Format format) throws IOException {
+            stream = null;
+            if (format == Format.PACKED) {
+                writer = null;
+                packed = new PackedPuzzleWriter(path);
+            } else {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                packed = null;
+            }
+        }
+
+        void write(final String text) throws IOException {
+            writer.write(text);
+            if (!text.endsWith(System.lineSeparator())) {
+                writer.write(System.lineSeparator());
+            }
+        }
+
+        void write(final byte[] cells) throws IOException {
+            packed.write(cells);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (packed != null) {
+                packed.close();
+            } else if (stream != null) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        }
+    }
+}
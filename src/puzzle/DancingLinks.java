@@ -0,0 +1,266 @@
+package puzzle;
+
+import java.util.function.Consumer;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * Knuth's Algorithm X on a dancing links matrix. sudoku is modeled as exact cover:
+ * 729 rows (every digit in every cell) and 324 columns (each cell filled once and each
+ * digit once per row, column and box). the links are kept in int arrays, node 0 is the
+ * root and nodes 1 - 324 are the column headers. an instance is not thread safe.
+ */
+public final class DancingLinks {
+    private final static int COLUMNS = 4 * CELLS;
+    private final static int ROWS = CELLS * LENGTH;
+    private final static int NODES = 1 + COLUMNS + 4 * ROWS;
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] rowOf = new int[NODES];
+    private final int[] size = new int[1 + COLUMNS];
+    /* first node of every matrix row */
+    private final int[] rowStart = new int[ROWS];
+    private final int[] selected = new int[CELLS];
+
+    private final BitBoard start;
+    private Consumer<BitBoard> consumer;
+    private int limit;
+    private int count;
+    /* rows tried since the last solve started, and the other SolveStats counters */
+    private long nodes;
+    private long backtracks;
+    private long guesses;
+    private int maxDepth;
+    private SolveLimits.Budget budget;
+    private boolean stopped;
+
+    /**
+     * builds the matrix and removes the rows and columns covered by the filled cells
+     * @param board board to solve, not modified
+     */
+    public DancingLinks(final BitBoard board) {
+        start = new BitBoard(board);
+        build();
+        for (int i = 0; i < CELLS; i++) {
+            final int digit = start.get(i);
+            if (digit != 0) {
+                select(rowStart[i * LENGTH + digit - 1]);
+            }
+        }
+    }
+
+    /**
+     * search for solutions
+     * @param maxSolutions stop after this many solutions
+     * @param onSolution called with a new solved board for every solution, may be null
+     * @return number of solutions found
+     */
+    public int solve(final int maxSolutions, final Consumer<BitBoard> onSolution) {
+        return solve(maxSolutions, onSolution, null);
+    }
+
+    /**
+     * search for solutions within a budget
+     * @param maxSolutions stop after this many solutions
+     * @param onSolution called with a new solved board for every solution, may be null
+     * @param limits deadline, node budget and token of the call, null for none
+     * @return number of solutions found, see isStopped for whether the search was complete
+     */
+    int solve(final int maxSolutions, final Consumer<BitBoard> onSolution, final SolveLimits.Budget limits) {
+        consumer = onSolution;
+        limit = maxSolutions;
+        count = 0;
+        nodes = 0;
+        backtracks = 0;
+        guesses = 0;
+        maxDepth = 0;
+        budget = limits;
+        stopped = false;
+        if (limit > 0) {
+            search(0);
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the last solve was stopped by its budget before it finished
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return rows tried by the last solve
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * @return counters of the last solve, the phase times are not measured
+     */
+    SolveStats getStats() {
+        return new SolveStats(nodes, backtracks, guesses, maxDepth, 0, false, 0, 0, 0);
+    }
+
+    /**
+     * @param k number of rows selected by the search so far
+     * @return true if the search should stop
+     */
+    private boolean search(final int k) {
+        if (right[0] == 0) {
+            count++;
+            if (consumer != null) {
+                consumer.accept(toBoard(k));
+            }
+            return count >= limit;
+        }
+
+        //column with the fewest rows
+        int c = right[0];
+        for (int j = right[c]; j != 0; j = right[j]) {
+            if (size[j] < size[c]) {
+                c = j;
+            }
+        }
+        if (size[c] == 0) {
+            backtracks++;
+            return false;
+        }
+        guesses++;
+        if (k >= maxDepth) {
+            maxDepth = k + 1;
+        }
+
+        cover(c);
+        for (int r = down[c]; r != c; r = down[r]) {
+            nodes++;
+            if (budget != null && isOverBudget()) {
+                uncover(c);
+                return true;
+            }
+            selected[k] = r;
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            final boolean stop = search(k + 1);
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+            if (stop) {
+                uncover(c);
+                return true;
+            }
+        }
+        uncover(c);
+        return false;
+    }
+
+    /**
+     * checks the node budget, and the clock and token every CHECK_INTERVAL nodes
+     * @return true if the search has to stop
+     */
+    private boolean isOverBudget() {
+        if (nodes >= budget.getMaxNodes()
+                || ((nodes & (SolveLimits.CHECK_INTERVAL - 1)) == 0 && budget.checkpoint())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * @param k number of selected rows
+     * @return the start board plus the selected rows
+     */
+    private BitBoard toBoard(final int k) {
+        final BitBoard retVal = new BitBoard(start);
+        for (int i = 0; i < k; i++) {
+            final int row = rowOf[selected[i]];
+            retVal.place(row / LENGTH, row % LENGTH + 1);
+        }
+        return retVal;
+    }
+
+    /**
+     * permanently select a matrix row, used for the filled cells of the start board
+     * @param node first node of the row
+     */
+    private void select(final int node) {
+        cover(column[node]);
+        for (int j = right[node]; j != node; j = right[j]) {
+            cover(column[j]);
+        }
+    }
+
+    private void cover(final int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(final int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    /**
+     * link the root, the column headers and the 4 nodes of every row
+     */
+    private void build() {
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == 0 ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+        int node = COLUMNS + 1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            final int row = BitBoard.ROW[cell];
+            final int col = BitBoard.COL[cell];
+            final int box = BitBoard.BOX[cell];
+            for (int d = 0; d < LENGTH; d++) {
+                final int matrixRow = cell * LENGTH + d;
+                final int first = node;
+                rowStart[matrixRow] = first;
+                final int[] columns = {
+                        1 + cell,
+                        1 + CELLS + row * LENGTH + d,
+                        1 + 2 * CELLS + col * LENGTH + d,
+                        1 + 3 * CELLS + box * LENGTH + d
+                };
+                for (int k = 0; k < 4; k++) {
+                    final int c = columns[k];
+                    column[node] = c;
+                    rowOf[node] = matrixRow;
+                    up[node] = up[c];
+                    down[node] = c;
+                    down[up[c]] = node;
+                    up[c] = node;
+                    size[c]++;
+                    left[node] = k == 0 ? first + 3 : node - 1;
+                    right[node] = k == 3 ? first : node + 1;
+                    node++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package puzzle;
+
+import java.util.Random;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * generates puzzles with exactly one solution.
+ *
+ * a solved grid is made by filling the three independent diagonal boxes with random
+ * permutations and letting the SearchEngine complete it. the grid is then relabeled and
+ * shuffled with random band, stack, row, column and digit permutations and an optional
+ * transpose, all of which keep it valid. clues are removed in random order and a removal
+ * is only kept if the puzzle still has a unique solution, until the clue count of the
+ * requested difficulty is reached or no clue can be removed anymore. in the latter case
+ * generate starts over with a new grid, see MAX_ATTEMPTS.
+ *
+ * an instance is not thread safe, use one per thread.
+ */
+public class Generator {
+
+    /**
+     * difficulty tiers by the number of clues left in the puzzle. the tiers are clue counts
+     * only, they say nothing about the techniques needed to solve the puzzle, use
+     * LogicalSolver to rate a puzzle by technique.
+     */
+    public enum Difficulty {
+        EASY(36),
+        MEDIUM(30),
+        HARD(26),
+        /* remove clues until none can be removed, usually 22 - 26 are left */
+        EXPERT(0);
+
+        private final int clues;
+
+        Difficulty(final int clues) {
+            this.clues = clues;
+        }
+
+        /**
+         * @return clue count at which the generator stops removing clues
+         */
+        public int getClues() {
+            return clues;
+        }
+    }
+
+    /* grids tried by generate before it settles for the puzzle with the fewest clues */
+    private final static int MAX_ATTEMPTS = 20;
+
+    private final Random random;
+    private final SearchEngine engine = new SearchEngine();
+    private final BitBoard probe = new BitBoard();
+    private final int[] order = new int[CELLS];
+    private final int[] rowMap = new int[LENGTH];
+    private final int[] colMap = new int[LENGTH];
+    private final int[] digitMap = new int[LENGTH + 1];
+
+    public Generator() {
+        this(new Random());
+    }
+
+    /**
+     * @param random source of randomness, a seeded Random makes the output reproducible
+     */
+    public Generator(final Random random) {
+        this.random = random;
+    }
+
+    /**
+     * a grid can get stuck above the clue count of the difficulty when no clue can be removed
+     * without losing uniqueness. a new grid is tried then, and after MAX_ATTEMPTS grids the
+     * puzzle with the fewest clues is returned, which is rare but possible for HARD. count the
+     * empty cells of the result for the clue count actually reached.
+     * @param difficulty target difficulty
+     * @return new puzzle with a unique solution, its empty cells are the puzzle cells
+     */
+    public Board generate(final Difficulty difficulty) {
+        //EXPERT has no count to reach, it takes whatever its grid leaves
+        final int attempts = difficulty == Difficulty.EXPERT ? 1 : MAX_ATTEMPTS;
+        BitBoard best = null;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            final BitBoard puzzle = puzzle(solvedGrid(), difficulty.getClues());
+            if (best == null || puzzle.filledCount() < best.filledCount()) {
+                best = puzzle;
+            }
+            if (best.filledCount() <= difficulty.getClues()) {
+                break;
+            }
+        }
+        final Board retVal = new Board(best);
+        retVal.markEmptyCells();
+        return retVal;
+    }
+
+    /**
+     * @return a random solved grid
+     */
+    public BitBoard solvedGrid() {
+        final BitBoard seed = new BitBoard();
+        for (int box = 0; box < LENGTH; box += 4) {
+            shuffle(digitMap, 1, LENGTH);
+            for (int k = 0; k < LENGTH; k++) {
+                final int row = (box / 3) * 3 + k / 3;
+                final int col = (box % 3) * 3 + k % 3;
+                seed.place(BitBoard.index(row, col), digitMap[k + 1]);
+            }
+        }
+        if (!engine.solve(seed)) {
+            throw new IllegalStateException("diagonal boxes can always be completed");
+        }
+        return permute(engine.getSolution());
+    }
+
+    /**
+     * remove clues from a solved grid while the solution stays unique. every clue is tried once,
+     * so the puzzle may keep more than targetClues clues if none of them can be removed.
+     * @param solution solved grid, not modified
+     * @param targetClues stop once this many clues are left
+     * @return the puzzle, its filledCount is the clue count reached
+     */
+    public BitBoard puzzle(final BitBoard solution, final int targetClues) {
+        final BitBoard puzzle = new BitBoard(solution);
+        shuffle(order, 0, CELLS);
+        for (int k = 0; k < CELLS && puzzle.filledCount() > targetClues; k++) {
+            final int cell = order[k];
+            final int digit = puzzle.get(cell);
+            puzzle.remove(cell);
+            if (!isUnique(puzzle, cell, digit)) {
+                puzzle.place(cell, digit);
+            }
+        }
+        return puzzle;
+    }
+
+    /**
+     * the puzzle had a unique solution before the cell was emptied, so it still has one
+     * unless the cell can take another digit in some solution
+     * @param puzzle puzzle with the cell emptied
+     * @param cell emptied cell
+     * @param digit digit of the cell in the solution
+     * @return true if the solution is still unique
+     */
+    private boolean isUnique(final BitBoard puzzle, final int cell, final int digit) {
+        int others = puzzle.candidates(cell) & ~(1 << (digit - 1));
+        while (others != 0) {
+            final int bit = others & -others;
+            others ^= bit;
+            probe.copyFrom(puzzle);
+            probe.place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+            if (engine.solve(probe)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param grid solved grid, not modified
+     * @return the grid with random band, stack, row, column and digit permutations applied
+     */
+    private BitBoard permute(final BitBoard grid) {
+        randomLineMap(rowMap);
+        randomLineMap(colMap);
+        shuffle(digitMap, 1, LENGTH);
+        final boolean transpose = random.nextBoolean();
+        final BitBoard retVal = new BitBoard();
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                final int source = transpose
+                        ? BitBoard.index(colMap[col], rowMap[row])
+                        : BitBoard.index(rowMap[row], colMap[col]);
+                retVal.place(BitBoard.index(row, col), digitMap[grid.get(source)]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * random order of the 3 bands (or stacks) and of the 3 lines within each of them
+     * @param map receives the source line of every line
+     */
+    private void randomLineMap(final int[] map) {
+        final int[] bands = {0, 1, 2};
+        shuffle(bands, 0, 3);
+        final int[] lines = {0, 1, 2};
+        for (int band = 0; band < 3; band++) {
+            shuffle(lines, 0, 3);
+            for (int line = 0; line < 3; line++) {
+                map[band * 3 + line] = bands[band] * 3 + lines[line];
+            }
+        }
+    }
+
+    /**
+     * fisher yates shuffle of the values from, from + 1, ... written to array[from ... from + count)
+     * @param array target array
+     * @param from first index and first value
+     * @param count number of values
+     */
+    private void shuffle(final int[] array, final int from, final int count) {
+        for (int i = 0; i < count; i++) {
+            array[from + i] = from + i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = array[from + i];
+            array[from + i] = array[from + j];
+            array[from + j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package puzzle;
+
+import java.util.Arrays;
+
+/**
+ * shape of an N^2 x N^2 board: box size, the row, column and box of every cell and the
+ * cell indexes of every unit and the peers of every cell. the tables are built once per box
+ * size and shared, an instance is immutable.
+ *
+ * digits are 1 - N^2 and written with the symbols 1 - 9 followed by A - P, so the largest
+ * supported board is 25x25 and a set of digits always fits in an int bitmask.
+ */
+public final class Geometry {
+    public final static String SYMBOLS = "123456789ABCDEFGHIJKLMNOP";
+    public final static int MIN_BOX = 2;
+    public final static int MAX_BOX = 5;
+    private final static Geometry[] SHAPES = new Geometry[MAX_BOX + 1];
+
+    /* box size, digits per unit, cells and the mask of all digits */
+    final int box;
+    final int size;
+    final int cells;
+    final int all;
+
+    final int[] row;
+    final int[] col;
+    final int[] boxOf;
+    /* rows, then columns, then boxes */
+    final int[][] units;
+    /* every other cell sharing a unit with the cell, 20 on a 9x9 board */
+    final int[][] peers;
+
+    private Geometry(final int box) {
+        this.box = box;
+        size = box * box;
+        cells = size * size;
+        all = (int) ((1L << size) - 1);
+        row = new int[cells];
+        col = new int[cells];
+        boxOf = new int[cells];
+        units = new int[3 * size][size];
+        final int[] unitFill = new int[3 * size];
+        for (int i = 0; i < cells; i++) {
+            row[i] = i / size;
+            col[i] = i % size;
+            boxOf[i] = (row[i] / box) * box + col[i] / box;
+            units[row[i]][unitFill[row[i]]++] = i;
+            units[size + col[i]][unitFill[size + col[i]]++] = i;
+            units[2 * size + boxOf[i]][unitFill[2 * size + boxOf[i]]++] = i;
+        }
+        peers = new int[cells][];
+        for (int i = 0; i < cells; i++) {
+            int count = 0;
+            final int[] buffer = new int[3 * size];
+            for (int j = 0; j < cells; j++) {
+                if (j != i && (row[j] == row[i] || col[j] == col[i] || boxOf[j] == boxOf[i])) {
+                    buffer[count++] = j;
+                }
+            }
+            peers[i] = Arrays.copyOf(buffer, count);
+        }
+    }
+
+    /**
+     * @param box box size, 3 for the classic 9x9 board
+     * @return the shared geometry
+     */
+    public static Geometry of(final int box) {
+        if (box < MIN_BOX || box > MAX_BOX) {
+            throw new IllegalArgumentException("box size must be between " + MIN_BOX + " and " + MAX_BOX + " but was " + box);
+        }
+        synchronized (SHAPES) {
+            if (SHAPES[box] == null) {
+                SHAPES[box] = new Geometry(box);
+            }
+            return SHAPES[box];
+        }
+    }
+
+    /**
+     * @param size digits per unit, 9 for the classic board
+     * @return the shared geometry
+     */
+    public static Geometry ofSize(final int size) {
+        final int box = (int) Math.round(Math.sqrt(size));
+        if (box * box != size) {
+            throw new IllegalArgumentException("not a square size " + size);
+        }
+        return of(box);
+    }
+
+    public int getBoxSize() {
+        return box;
+    }
+
+    /**
+     * @return digits per unit and rows of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cells;
+    }
+
+    /**
+     * @param digit 1 - size, 0 for an empty cell
+     * @return symbol of the digit, '.' for an empty cell
+     */
+    public char toChar(final int digit) {
+        return digit == 0 ? '.' : SYMBOLS.charAt(digit - 1);
+    }
+
+    /**
+     * @param symbol 1 - 9 and A - P (or a - p), '.', '0' and '_' for empty
+     * @return digit of the symbol, 0 for empty and -1 if the symbol is not valid on this board
+     */
+    public int toDigit(final char symbol) {
+        if (symbol == '.' || symbol == '0' || symbol == '_') {
+            return 0;
+        }
+        final int digit = SYMBOLS.indexOf(Character.toUpperCase(symbol)) + 1;
+        return digit == 0 || digit > size ? -1 : digit;
+    }
+}
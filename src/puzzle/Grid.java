@@ -0,0 +1,222 @@
+package puzzle;
+
+import java.util.List;
+
+/**
+ * board of any supported size (4x4, 9x9, 16x16 or 25x25) built on a Geometry. like BitBoard
+ * every cell is a byte and every unit keeps a bitmask of its digits, digit d is bit d - 1.
+ * the classic game keeps using Board and BitBoard, which are specialized for 9x9.
+ * an instance is not thread safe.
+ */
+public class Grid {
+    private final Geometry geometry;
+    final byte[] cells;
+    final int[] rows;
+    final int[] cols;
+    final int[] boxes;
+    int filled = 0;
+
+    /**
+     * creates an empty board
+     * @param geometry shape of the board
+     */
+    public Grid(final Geometry geometry) {
+        this.geometry = geometry;
+        cells = new byte[geometry.cells];
+        rows = new int[geometry.size];
+        cols = new int[geometry.size];
+        boxes = new int[geometry.size];
+    }
+
+    /**
+     * copy constructor
+     * @param other board to copy
+     */
+    public Grid(final Grid other) {
+        this(other.geometry);
+        copyFrom(other);
+    }
+
+    /**
+     * overwrite this board with the content of another one of the same shape
+     * @param other board to copy
+     */
+    public void copyFrom(final Grid other) {
+        if (other.geometry != geometry) {
+            throw new IllegalArgumentException("boards of different sizes");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.rows, 0, rows, 0, rows.length);
+        System.arraycopy(other.cols, 0, cols, 0, cols.length);
+        System.arraycopy(other.boxes, 0, boxes, 0, boxes.length);
+        filled = other.filled;
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return digit in the cell, 0 if empty
+     */
+    public int get(final int row, final int col) {
+        return cells[row * geometry.size + col];
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @param digit digit to check
+     * @return true if the cell is empty and the digit is not used by its row, column or box
+     */
+    public boolean canPlace(final int row, final int col, final int digit) {
+        return digit >= 1 && digit <= geometry.size
+                && (candidates(row * geometry.size + col) & (1 << (digit - 1))) != 0;
+    }
+
+    /**
+     * set or clear a cell, an existing digit is replaced
+     * @param row target row
+     * @param col target column
+     * @param digit 1 - size, 0 clears the cell
+     * @return false if the digit breaks the rules, the board is then unchanged
+     */
+    public boolean set(final int row, final int col, final int digit) {
+        final int index = row * geometry.size + col;
+        final int old = cells[index];
+        if (old != 0) {
+            remove(index);
+        }
+        if (digit == 0) {
+            return true;
+        }
+        if (!canPlace(row, col, digit)) {
+            if (old != 0) {
+                place(index, old);
+            }
+            return false;
+        }
+        place(index, digit);
+        return true;
+    }
+
+    /**
+     * @param symbol symbol to enter, see Geometry.toDigit
+     * @param row target row
+     * @param col target column
+     * @return true if the symbol does not break the rules, clearing a cell is always allowed
+     */
+    public boolean isValidEntry(final char symbol, final int row, final int col) {
+        final int digit = geometry.toDigit(symbol);
+        return digit == 0 || digit > 0 && canPlace(row, col, digit);
+    }
+
+    /**
+     * @return true if every cell is filled, the masks guarantee the rules hold
+     */
+    public boolean isSolved() {
+        return filled == geometry.cells;
+    }
+
+    public int filledCount() {
+        return filled;
+    }
+
+    /**
+     * @param index empty cell
+     * @return digits that can go into the cell, 0 if it is filled
+     */
+    int candidates(final int index) {
+        if (cells[index] != 0) {
+            return 0;
+        }
+        return geometry.all & ~(rows[geometry.row[index]] | cols[geometry.col[index]] | boxes[geometry.boxOf[index]]);
+    }
+
+    /**
+     * place a digit without any check
+     */
+    void place(final int index, final int digit) {
+        final int bit = 1 << (digit - 1);
+        cells[index] = (byte) digit;
+        rows[geometry.row[index]] |= bit;
+        cols[geometry.col[index]] |= bit;
+        boxes[geometry.boxOf[index]] |= bit;
+        filled++;
+    }
+
+    /**
+     * clear a filled cell without any check
+     */
+    void remove(final int index) {
+        final int bit = ~(1 << (cells[index] - 1));
+        cells[index] = 0;
+        rows[geometry.row[index]] &= bit;
+        cols[geometry.col[index]] &= bit;
+        boxes[geometry.boxOf[index]] &= bit;
+        filled--;
+    }
+
+    /**
+     * parse a puzzle of any supported size. white space and the separators '|', '+' and '-'
+     * are ignored, the size follows from the number of cells (16, 81, 256 or 625).
+     * @param text puzzle on one or several lines
+     * @return the puzzle
+     * @throws Exception if the text is not a valid puzzle
+     */
+    public static Grid parse(final CharSequence text) throws Exception {
+        final StringBuilder symbols = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char ch = text.charAt(i);
+            if (!Character.isWhitespace(ch) && ch != '|' && ch != '+' && ch != '-') {
+                symbols.append(ch);
+            }
+        }
+        Geometry geometry = null;
+        for (int box = Geometry.MIN_BOX; box <= Geometry.MAX_BOX; box++) {
+            if (box * box * box * box == symbols.length()) {
+                geometry = Geometry.of(box);
+            }
+        }
+        if (geometry == null) {
+            throw new Exception("cell count " + symbols.length() + " does not fit any board size");
+        }
+        final Grid retVal = new Grid(geometry);
+        for (int i = 0; i < geometry.cells; i++) {
+            final int digit = geometry.toDigit(symbols.charAt(i));
+            if (digit < 0) {
+                throw new Exception("invalid symbol '" + symbols.charAt(i) + "' for a " + geometry.size + "x" + geometry.size + " board");
+            }
+            if (digit != 0 && !retVal.set(geometry.row[i], geometry.col[i], digit)) {
+                throw new Exception("Invalid entry");
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param lines one row per line
+     * @return the puzzle
+     * @throws Exception if the lines are not a valid puzzle
+     */
+    public static Grid parse(final List<String> lines) throws Exception {
+        return parse(String.join("\n", lines));
+    }
+
+    /**
+     * @return one line per row, '.' for empty cells
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(geometry.cells + geometry.size);
+        for (int i = 0; i < geometry.cells; i++) {
+            builder.append(geometry.toChar(cells[i]));
+            if (geometry.col[i] == geometry.size - 1) {
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,281 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * solver for boards of any supported size. it uses the same strategy as SearchEngine:
+ * naked and hidden singles are propagated until nothing changes, then the empty cell with the
+ * fewest candidates is tried digit by digit, or a digit with even fewer places in a unit is
+ * tried place by place. instead of an undo trail every branch restores a saved copy of the
+ * board, one per depth, allocated once and reused.
+ *
+ * large boards with many givens missing can run into huge dead subtrees, so ties between cells
+ * and the digit order are randomized and the search restarts with a doubled branch budget
+ * whenever the budget runs out. the seed is fixed, results are reproducible. without limits
+ * an unsolvable or very open board is searched to the end however long that takes, pass
+ * SolveLimits to bound it.
+ * 9x9 boards are faster on SearchEngine, Solver.solve(Grid) picks the engine.
+ * an instance is not thread safe.
+ */
+public final class GridEngine {
+    /* branches of the first attempt, doubled on every restart */
+    private final static long RESTART_NODES = 1000;
+    private final Geometry geometry;
+    private final Grid[] saved;
+    private Grid grid;
+    private long nodes;
+    private long budget;
+    /* limits of the current call */
+    private SolveLimits.Budget bounds;
+    /* set once the limits of the call are exceeded */
+    private boolean stopped;
+    private final Random random;
+    private final int[] placeCounts;
+    private int branchUnit;
+    private int branchDigit;
+
+    /**
+     * @param geometry shape of the boards to solve
+     */
+    public GridEngine(final Geometry geometry) {
+        this.geometry = geometry;
+        saved = new Grid[geometry.cells + 1];
+        placeCounts = new int[geometry.size];
+        random = new Random(geometry.cells);
+    }
+
+    /**
+     * @param puzzle board to solve in place, left unchanged if it has no solution
+     * @return true if a solution was found
+     */
+    public boolean solve(final Grid puzzle) {
+        return solve(puzzle, SolveLimits.NONE) == SolveResult.Status.SOLVED;
+    }
+
+    /**
+     * @param puzzle board to solve in place, left unchanged unless it was solved
+     * @param limits deadline, node budget and cancellation token of the call, the node budget
+     *               counts the branches of all restarts
+     * @return SOLVED, UNSOLVABLE or the reason the search stopped early
+     */
+    public SolveResult.Status solve(final Grid puzzle, final SolveLimits limits) {
+        if (puzzle.getGeometry() != geometry) {
+            throw new IllegalArgumentException("engine for " + geometry.size + "x" + geometry.size + " boards");
+        }
+        grid = puzzle;
+        nodes = 0;
+        bounds = limits.start();
+        stopped = false;
+        final Grid start = new Grid(puzzle);
+        boolean solved = false;
+        for (long limit = RESTART_NODES; !solved && !stopped; limit *= 2) {
+            budget = nodes + limit;
+            solved = search(0);
+            if (!solved) {
+                puzzle.copyFrom(start);
+                if (nodes <= budget) {
+                    break; // the whole tree was searched
+                }
+            }
+        }
+        grid = null;
+        if (solved) {
+            return SolveResult.Status.SOLVED;
+        }
+        return stopped ? bounds.stoppedStatus() : SolveResult.Status.UNSOLVABLE;
+    }
+
+    /**
+     * @return number of branches tried by the last solve
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    private boolean search(final int depth) {
+        if (nodes > budget || isStopped() || !propagate()) {
+            return false;
+        }
+        if (grid.isSolved()) {
+            return true;
+        }
+        final int cell = mostConstrainedCell();
+        if (saved[depth] == null) {
+            saved[depth] = new Grid(geometry);
+        }
+        final Grid backup = saved[depth];
+        backup.copyFrom(grid);
+        final int cellCount = Integer.bitCount(grid.candidates(cell));
+        if (cellCount > 2 && leastPlacedDigit() < cellCount) {
+            /* a digit with fewer places in one of its units than the cell has candidates */
+            final int bit = 1 << (branchDigit - 1);
+            for (final int i : geometry.units[branchUnit]) {
+                if ((grid.candidates(i) & bit) != 0) {
+                    nodes++;
+                    grid.place(i, branchDigit);
+                    if (search(depth + 1)) {
+                        return true;
+                    }
+                    grid.copyFrom(backup);
+                }
+            }
+            return false;
+        }
+        /* start at a random digit, the order changes with every restart */
+        final int candidates = grid.candidates(cell);
+        final int first = random.nextInt(geometry.size);
+        int mask = candidates & (-1 << first);
+        mask = mask != 0 ? mask : candidates;
+        while (mask != 0) {
+            final int bit = mask & -mask;
+            mask ^= bit;
+            nodes++;
+            grid.place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+            if (search(depth + 1)) {
+                return true;
+            }
+            grid.copyFrom(backup);
+            if (mask == 0 && (bit & ~(-1 << first)) == 0) {
+                mask = candidates & ~(-1 << first);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the node budget is compared on every branch, the clock and the token are read every
+     * CHECK_INTERVAL branches
+     * @return true if the limits of the call are exceeded
+     */
+    private boolean isStopped() {
+        if (!stopped && (nodes >= bounds.getMaxNodes()
+                || ((nodes & (SolveLimits.CHECK_INTERVAL - 1)) == 0 && bounds.checkpoint()))) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * find the digit with the fewest places left in some unit, stored in branchUnit and branchDigit
+     * @return number of places
+     */
+    private int leastPlacedDigit() {
+        int best = Integer.MAX_VALUE;
+        for (int u = 0; u < geometry.units.length; u++) {
+            Arrays.fill(placeCounts, 0);
+            for (final int i : geometry.units[u]) {
+                int mask = grid.candidates(i);
+                while (mask != 0) {
+                    placeCounts[Integer.numberOfTrailingZeros(mask)]++;
+                    mask &= mask - 1;
+                }
+            }
+            for (int d = 0; d < geometry.size; d++) {
+                if (placeCounts[d] > 1 && placeCounts[d] < best) {
+                    best = placeCounts[d];
+                    branchUnit = u;
+                    branchDigit = d + 1;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * fill naked and hidden singles until none are left
+     * @return false if the board cannot be solved anymore
+     */
+    private boolean propagate() {
+        final byte[] cells = grid.cells;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < geometry.cells; i++) {
+                if (cells[i] != 0) {
+                    continue;
+                }
+                final int mask = grid.candidates(i);
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    grid.place(i, Integer.numberOfTrailingZeros(mask) + 1);
+                    changed = true;
+                }
+            }
+            for (final int[] unit : geometry.units) {
+                int placed = 0;
+                int once = 0;
+                int twice = 0;
+                for (final int i : unit) {
+                    if (cells[i] != 0) {
+                        placed |= 1 << (cells[i] - 1);
+                    } else {
+                        final int mask = grid.candidates(i);
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                if ((once | placed) != geometry.all) {
+                    return false;
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    final int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    final int cell = find(unit, bit);
+                    if (cell < 0) {
+                        return false;
+                    }
+                    grid.place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * @return empty cell with the fewest candidates, ties go to the cell whose peers have the
+     * fewest candidates and then to a random one
+     */
+    private int mostConstrainedCell() {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int bestScore = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < geometry.cells; i++) {
+            if (grid.cells[i] != 0) {
+                continue;
+            }
+            final int count = Integer.bitCount(grid.candidates(i));
+            if (count > bestCount) {
+                continue;
+            }
+            int score = 0;
+            for (final int peer : geometry.peers[i]) {
+                score += Integer.bitCount(grid.candidates(peer));
+            }
+            if (count < bestCount || score < bestScore) {
+                best = i;
+                bestCount = count;
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int find(final int[] unit, final int bit) {
+        for (final int i : unit) {
+            if ((grid.candidates(i) & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
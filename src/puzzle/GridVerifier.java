@@ -0,0 +1,175 @@
+package puzzle;
+
+import static puzzle.Board.LENGTH;
+
+/**
+ * checks many completed grids per call, e.g. player submissions or generator output. the grids
+ * are packed records as in PackedPuzzleFile, 41 bytes with one cell per nibble.
+ *
+ * the check is branch free. digit d becomes the one hot mask (1 << d) >>> 1, so an empty cell
+ * adds nothing and a nibble above 9 sets a bit above the 9 digit bits. a unit holds 1 - 9 exactly
+ * once if and only if the or of its 9 masks is ALL_DIGITS. a row is kept as 3 longs of 3 lanes
+ * of 21 bits, one lane per column and one long per stack, so a single or per long updates 3
+ * columns at once, and the lanes of one long over 3 rows are exactly one box. the 27 results are
+ * turned into a bit per unit with lane arithmetic instead of comparisons.
+ */
+public final class GridVerifier {
+    /** result of a grid that is a complete and valid solution */
+    public final static int VALID = -1;
+    /** number of units, rows 0 - 8, columns 9 - 17 and boxes 18 - 26 */
+    public final static int UNITS = 3 * LENGTH;
+
+    private final static int LANE = 21;
+    private final static long LANE_MASK = (1L << LANE) - 1;
+    /* ALL_DIGITS in each of the 3 lanes */
+    private final static long FULL = BitBoard.ALL_DIGITS * (1L | 1L << LANE | 1L << 2 * LANE);
+    /* added to a lane below 2^20 to carry into bit 20 of the lane unless it is 0 */
+    private final static long CARRY = ((1L << (LANE - 1)) - 1) * (1L | 1L << LANE | 1L << 2 * LANE);
+    private final static long HIGH = (1L << (LANE - 1)) * (1L | 1L << LANE | 1L << 2 * LANE);
+
+    private GridVerifier() {
+    }
+
+    /**
+     * @param records packed grids
+     * @param offset first byte of the grid
+     * @return VALID or the first unit that does not hold 1 - 9 exactly once
+     */
+    public static int verify(final byte[] records, final int offset) {
+        final int bad = badUnits(records, offset);
+        return bad == 0 ? VALID : Integer.numberOfTrailingZeros(bad);
+    }
+
+    /**
+     * @param records packed grids, one every PackedPuzzleFile.RECORD_SIZE bytes
+     * @param offset first byte of the first grid
+     * @param count number of grids
+     * @param results receives VALID or the first violated unit of every grid, from index 0
+     * @return number of valid grids
+     */
+    public static int verifyAll(final byte[] records, final int offset, final int count, final int[] results) {
+        return verifyAll(records, offset, count, results, 0);
+    }
+
+    /**
+     * @param records packed grids, one every PackedPuzzleFile.RECORD_SIZE bytes
+     * @param offset first byte of the first grid
+     * @param count number of grids
+     * @param results receives VALID or the first violated unit of every grid
+     * @param resultOffset index of the result of the first grid
+     * @return number of valid grids
+     */
+    public static int verifyAll(final byte[] records, final int offset, final int count,
+                                final int[] results, final int resultOffset) {
+        int valid = 0;
+        for (int n = 0; n < count; n++) {
+            final int bad = badUnits(records, offset + n * PackedPuzzleFile.RECORD_SIZE);
+            valid += bad == 0 ? 1 : 0;
+            results[resultOffset + n] = bad == 0 ? VALID : Integer.numberOfTrailingZeros(bad);
+        }
+        return valid;
+    }
+
+    /**
+     * @param unit 0 - 26 as returned by verify
+     * @return e.g. "row 1", "column 9" or "box 5"
+     */
+    public static String unitName(final int unit) {
+        if (unit < 0 || unit >= UNITS) {
+            throw new IllegalArgumentException("no unit " + unit);
+        }
+        final String[] kinds = {"row ", "column ", "box "};
+        return kinds[unit / LENGTH] + (unit % LENGTH + 1);
+    }
+
+    /**
+     * @param records packed grids
+     * @param offset first byte of the grid
+     * @return bit u set for every unit u that does not hold 1 - 9 exactly once
+     */
+    private static int badUnits(final byte[] records, final int offset) {
+        long col0 = 0;
+        long col1 = 0;
+        long col2 = 0;
+        int bad = 0;
+        int boxes = 0;
+        for (int band = 0; band < 3; band++) {
+            long box0 = 0;
+            long box1 = 0;
+            long box2 = 0;
+            for (int r = 0; r < 3; r++) {
+                final int row = band * 3 + r;
+                final long nibbles = row(records, offset, row);
+                final long stack0 = lanes(nibbles, 0);
+                final long stack1 = lanes(nibbles, 3);
+                final long stack2 = lanes(nibbles, 6);
+                col0 |= stack0;
+                col1 |= stack1;
+                col2 |= stack2;
+                box0 |= stack0;
+                box1 |= stack1;
+                box2 |= stack2;
+                bad |= isNotFull(fold(stack0 | stack1 | stack2)) << row;
+            }
+            boxes |= (isNotFull(fold(box0)) | isNotFull(fold(box1)) << 1 | isNotFull(fold(box2)) << 2) << (band * 3);
+        }
+        final int cols = lanesNotFull(col0) | lanesNotFull(col1) << 3 | lanesNotFull(col2) << 6;
+        return bad | cols << LENGTH | boxes << (2 * LENGTH);
+    }
+
+    /**
+     * row r starts at nibble 9r, which is the high nibble of byte 9r / 2 for even rows and the low
+     * one for odd rows. the 5 bytes from there always hold the row and stay inside the record.
+     * @return the 9 nibbles of the row, the first one in bits 32 - 35
+     */
+    private static long row(final byte[] records, final int offset, final int row) {
+        final int first = offset + (row * LENGTH >> 1);
+        final long bytes = (records[first] & 0xFFL) << 32
+                | (records[first + 1] & 0xFFL) << 24
+                | (records[first + 2] & 0xFFL) << 16
+                | (records[first + 3] & 0xFFL) << 8
+                | (records[first + 4] & 0xFFL);
+        //even rows drop the nibble after the row, odd rows the one before it
+        return (bytes >>> ((~row & 1) << 2)) & 0xF_FFFF_FFFFL;
+    }
+
+    /**
+     * @param nibbles row as returned by row()
+     * @param col first of 3 neighbouring columns
+     * @return the one hot masks of the 3 cells in the 3 lanes of a long
+     */
+    private static long lanes(final long nibbles, final int col) {
+        return oneHot(nibbles, col) | oneHot(nibbles, col + 1) << LANE | oneHot(nibbles, col + 2) << (2 * LANE);
+    }
+
+    /**
+     * @return bit d - 1 for digit d, 0 for an empty cell and a bit above the digits for 10 - 15
+     */
+    private static long oneHot(final long nibbles, final int col) {
+        return (1L << ((nibbles >>> (32 - 4 * col)) & 0xF)) >>> 1;
+    }
+
+    /**
+     * @return or of the 3 lanes
+     */
+    private static int fold(final long lanes) {
+        return (int) ((lanes | lanes >>> LANE | lanes >>> 2 * LANE) & LANE_MASK);
+    }
+
+    /**
+     * @param mask or of the one hot masks of a unit, below 2^15
+     * @return 0 if the mask is ALL_DIGITS, 1 otherwise
+     */
+    private static int isNotFull(final int mask) {
+        return (((mask ^ BitBoard.ALL_DIGITS) + 0x7FFF) >>> 15) & 1;
+    }
+
+    /**
+     * @param lanes 3 column masks
+     * @return bit k set if lane k is not ALL_DIGITS
+     */
+    private static int lanesNotFull(final long lanes) {
+        final long notFull = ((lanes ^ FULL) + CARRY) & HIGH;
+        return (int) (notFull >>> (LANE - 1) & 1 | notFull >>> (2 * LANE - 2) & 2 | notFull >>> (3 * LANE - 3) & 4);
+    }
+}
@@ -1,215 +1,395 @@
-package puzzle;
-
-import javax.swing.JButton;
-import javax.swing.JFileChooser;
-import javax.swing.JFrame;
-import javax.swing.JLabel;
-import javax.swing.JOptionPane;
-import javax.swing.JPanel;
-import javax.swing.JScrollPane;
-import javax.swing.JTable;
-import javax.swing.JTextArea;
-import javax.swing.filechooser.FileFilter;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
-import java.awt.Color;
-import java.awt.Component;
-import java.awt.Dimension;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.io.File;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
-import java.util.stream.IntStream;
-
-import static puzzle.Board.LENGTH;
-
-
-public class GuiComponent extends JPanel implements ActionListener{
-    Board board;
-
-	static JFrame frame;
-	static JTable table;
-
-	static JButton generateSudoku;
-	static JButton loadFromFile;
-	static JButton solveButton;
-	static JButton checkAnswer;
-
-	static JTextArea textArea;
-
-	public GuiComponent() throws Exception {
-		super();
-		board = null;
-
-        generateSudoku = new JButton("generate new puzzle");
-        generateSudoku.addActionListener(this);
-
-        loadFromFile = new JButton("load from file");
-        loadFromFile.addActionListener(this);
-
-        checkAnswer = new JButton("check");
-        checkAnswer.addActionListener(this);
-
-        solveButton = new JButton("solve");
-        solveButton.addActionListener(this);
-
-        textArea = new JTextArea("info panel");
-        textArea.setEditable(false);
-        textArea.setSize(new Dimension(300, 300));
-	}
-	
-	
-	public static void displayFrame() throws Exception{
-		frame = new JFrame("Sudoku sudoku.puzzle.Solver");
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		final GuiComponent comp = new GuiComponent();
-		frame.setContentPane(comp);
-
-		frame.add(generateSudoku);
-		frame.add(loadFromFile);
-		frame.add(checkAnswer);
-		frame.add(solveButton);
-
-		frame.add(textArea);
-
-		frame.setResizable(false);
-		
-		table = new JTable(new TableModel()){
-		    public Component prepareRenderer (TableCellRenderer renderer, int index_row, int index_col){
-		    	
-		        Component comp = super.prepareRenderer(renderer, index_row, index_col);  
-		        if(((index_row < 3 || index_row > 5) &&
-						(index_col < 3 || index_col > 5)) ||
-                        (index_col > 2 && index_col < 6 &&
-                         index_row > 2 && index_row < 6) ){
-		             comp.setBackground(new Color(204,255,204));
-		         }else{
-		        	 comp.setBackground(Color.white);
-		         }
-		       return comp;  
-		    }  			
-		};
-		for(int i = 0; i < 9; i++){
-			DefaultTableCellRenderer alligner = new DefaultTableCellRenderer();
-			alligner.setHorizontalAlignment(JLabel.CENTER);
-			table.getColumnModel().getColumn(i).setCellRenderer(alligner);
-		}
-		table.setPreferredScrollableViewportSize(new Dimension(400, 300));
-		JScrollPane scrollPane = new JScrollPane(table);
-		scrollPane.setPreferredSize(new Dimension(200, 168));
-		frame.add(scrollPane);
-		frame.setSize(650, 400);
-		frame.setVisible(true);
-
-	}
-
-    void updateTable(Character[][] boardStr){
-        IntStream.range(0, LENGTH)
-                .forEach(i -> IntStream.range(0, LENGTH)
-                        .forEach(j -> table.getModel().setValueAt("" + boardStr[i][j], i, j)));
-    }
-
-    void updateBoard() {
-        final List<String> emptyCells = board.getEmptyCells();
-        emptyCells.forEach(emptyCell -> {
-            final String[] rowCol = emptyCell.split(Board.SEPARATOR);
-            final int row = Integer.parseInt(rowCol[0]);
-            final int col = Integer.parseInt(rowCol[1]);
-            final String tableContent = ((String)table.getModel().getValueAt(row, col)).trim();
-            final Character entry = "".equals(tableContent) ? ' ' : tableContent.charAt(0);
-            final boolean isValid = board.insert(entry, row, col);
-            if (!isValid) {
-                return;
-            }
-        });
-    }
-	@Override
-	public void actionPerformed(ActionEvent evt) {
-
-        if (evt.getActionCommand().toLowerCase().startsWith("generate")) {
-            try {
-                board = Board.createBoard(false);
-                updateTable(board.getTwoDBoard());
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(null, e.getMessage());
-            }
-            return;
-        }
-
-        if (evt.getActionCommand().toLowerCase().startsWith("load")) {
-            try {
-                final JFileChooser fileChooser = new JFileChooser(".");
-                fileChooser.setFileFilter(getAcceptableFile());
-                fileChooser.showDialog(null, "select");
-                final File f = fileChooser.getSelectedFile();
-                if (f != null) {
-                    Path p = f.toPath();
-                    List<String> lines = Files.readAllLines(p, Charset.defaultCharset());
-                    Board tempBoard = Board.convertToBoard(lines);
-                    board = tempBoard;
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
-            if (board == null) {
-                return;
-            }
-            updateTable(board.getTwoDBoard());
-        }
-
-        if(evt.getActionCommand().toLowerCase().startsWith("check")){
-            if (board == null) {
-                return;
-            }
-            updateBoard();
-            final boolean isSolved = board.isSolved();
-
-            if (isSolved) {
-                textArea.setText("SOLVED!");
-            } else {
-                textArea.setText(":( NOT SOLVED");
-            }
-            return;
-        }
-
-
-		if(evt.getActionCommand().toLowerCase().startsWith("solve")){
-            if (board == null) {
-                return;
-            }
-            final Double start = Double.parseDouble(System.currentTimeMillis() + "");
-            final Solver solver = new Solver();
-            solver.solve(board);
-            if (board.isSolved()) {
-                updateTable(board.getTwoDBoard());
-                final Double end = Double.parseDouble(System.currentTimeMillis() + "");
-                final Double duration = (end - start) / 1000D;
-                textArea.setText("solved in " + duration + " seconds");
-            } else {
-                textArea.setText("couldn't solve");
-            }
-		}
-
-	}
-
-	private FileFilter getAcceptableFile() {
-        FileFilter retValue =  new FileFilter() {
-            @Override
-            public boolean accept(File f) {
-                return f.getAbsolutePath().toLowerCase().endsWith(".txt");
-            }
-
-            @Override
-            public String getDescription() {
-                return "text file input";
-            }
-        };
-        return retValue;
-    }
-	public void print(String str){
-		System.out.println(str);
-	}
-}
+package puzzle;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.filechooser.FileFilter;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+
+public class GuiComponent extends JPanel implements ActionListener{
+    /* a solve started from the gui gives up after this long */
+    private final static int SOLVE_TIMEOUT_SEC = 10;
+    /* how often the progress of a running solve is shown */
+    private final static int PROGRESS_INTERVAL_MS = 200;
+
+    Board board;
+    /* the player's entries for the board, null if there is no board */
+    private PlaySession session;
+
+    /* the solve or generate running in the background, null if idle */
+    private SwingWorker<?, ?> worker;
+    private CancellationToken token;
+    private final Timer progressTimer = new Timer(PROGRESS_INTERVAL_MS, e -> showProgress());
+    private long startNanos;
+
+	static JFrame frame;
+	static JTable table;
+
+	static JButton generateSudoku;
+	static JButton loadFromFile;
+	static JButton solveButton;
+	static JButton checkAnswer;
+	static JButton hintButton;
+	static JButton cancelButton;
+
+	static JTextArea textArea;
+
+	public GuiComponent() throws Exception {
+		super();
+		board = null;
+
+        generateSudoku = new JButton("generate new puzzle");
+        generateSudoku.addActionListener(this);
+
+        loadFromFile = new JButton("load from file");
+        loadFromFile.addActionListener(this);
+
+        checkAnswer = new JButton("check");
+        checkAnswer.addActionListener(this);
+
+        hintButton = new JButton("hint");
+        hintButton.addActionListener(this);
+
+        solveButton = new JButton("solve");
+        solveButton.addActionListener(this);
+
+        cancelButton = new JButton("cancel");
+        cancelButton.addActionListener(this);
+        cancelButton.setEnabled(false);
+
+        textArea = new JTextArea("info panel");
+        textArea.setEditable(false);
+        textArea.setSize(new Dimension(300, 300));
+	}
+	
+	
+	public static void displayFrame() throws Exception{
+		frame = new JFrame("Sudoku sudoku.puzzle.Solver");
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		final GuiComponent gui = new GuiComponent();
+		frame.setContentPane(gui);
+
+		frame.add(generateSudoku);
+		frame.add(loadFromFile);
+		frame.add(checkAnswer);
+		frame.add(hintButton);
+		frame.add(solveButton);
+		frame.add(cancelButton);
+
+		frame.add(textArea);
+
+		frame.setResizable(false);
+		
+		table = new JTable(new TableModel()){
+		    public Component prepareRenderer (TableCellRenderer renderer, int index_row, int index_col){
+		    	
+		        Component comp = super.prepareRenderer(renderer, index_row, index_col);  
+		        if (gui.session != null && gui.session.isConflict(index_row, index_col)) {
+		            comp.setBackground(new Color(255, 153, 153));
+		        } else if(((index_row < 3 || index_row > 5) &&
+						(index_col < 3 || index_col > 5)) ||
+                        (index_col > 2 && index_col < 6 &&
+                         index_row > 2 && index_row < 6) ){
+		             comp.setBackground(new Color(204,255,204));
+		         }else{
+		        	 comp.setBackground(Color.white);
+		         }
+		       return comp;  
+		    }  			
+		};
+		for(int i = 0; i < 9; i++){
+			DefaultTableCellRenderer alligner = new DefaultTableCellRenderer();
+			alligner.setHorizontalAlignment(JLabel.CENTER);
+			table.getColumnModel().getColumn(i).setCellRenderer(alligner);
+		}
+		table.getModel().addTableModelListener(gui::cellEdited);
+		table.setPreferredScrollableViewportSize(new Dimension(400, 300));
+		JScrollPane scrollPane = new JScrollPane(table);
+		scrollPane.setPreferredSize(new Dimension(200, 168));
+		frame.add(scrollPane);
+		frame.setSize(650, 400);
+		frame.setVisible(true);
+
+	}
+
+    void updateTable(Character[][] boardStr){
+        ((TableModel) table.getModel()).setBoard(boardStr);
+    }
+
+    /**
+     * show a new puzzle, its filled cells are the givens
+     * @param puzzle new board
+     */
+    void showPuzzle(final Board puzzle) {
+        board = puzzle;
+        session = new PlaySession(puzzle);
+        updateTable(puzzle.getTwoDBoard());
+    }
+
+    /**
+     * passes a digit the player typed into the table on to the session
+     * @param e change of the table model
+     */
+    void cellEdited(final TableModelEvent e) {
+        if (session == null || e.getType() != TableModelEvent.UPDATE
+                || e.getColumn() == TableModelEvent.ALL_COLUMNS || e.getFirstRow() != e.getLastRow()) {
+            return;
+        }
+        final int row = e.getFirstRow();
+        final int col = e.getColumn();
+        final String tableContent = String.valueOf(table.getModel().getValueAt(row, col)).trim();
+        final int digit = tableContent.length() == 1 ? BitBoard.toDigit(tableContent.charAt(0)) : 0;
+        session.set(row, col, digit < 0 ? 0 : digit);
+        textArea.setText(session.hasConflicts() ? "conflicting entries are marked" : "");
+        table.repaint();
+    }
+
+	@Override
+	public void actionPerformed(ActionEvent evt) {
+
+        if (evt.getActionCommand().toLowerCase().startsWith("cancel")) {
+            //a solve ends through its token so done() only runs once the board is left alone
+            if (token != null) {
+                token.cancel();
+            } else if (worker != null) {
+                worker.cancel(false);
+            }
+            return;
+        }
+
+        if (worker != null) {
+            return;
+        }
+
+        if (evt.getActionCommand().toLowerCase().startsWith("generate")) {
+            generate();
+            return;
+        }
+
+        if (evt.getActionCommand().toLowerCase().startsWith("load")) {
+            try {
+                final JFileChooser fileChooser = new JFileChooser(".");
+                fileChooser.setFileFilter(getAcceptableFile());
+                fileChooser.showDialog(null, "select");
+                final File f = fileChooser.getSelectedFile();
+                if (f != null) {
+                    try (PuzzleReader reader = PuzzleReader.open(f.toPath())) {
+                        if (reader.hasNext()) {
+                            showPuzzle(reader.next());
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+            return;
+        }
+
+        if(evt.getActionCommand().toLowerCase().startsWith("check")){
+            if (board == null) {
+                return;
+            }
+            if (session.isSolved()) {
+                textArea.setText("SOLVED!");
+            } else if (session.hasConflicts()) {
+                textArea.setText(":( NOT SOLVED, conflicting entries are marked");
+            } else if (session.isSolvable()) {
+                textArea.setText(":( NOT SOLVED, but no mistakes so far");
+            } else {
+                textArea.setText(":( NOT SOLVED, an entry is wrong");
+            }
+            return;
+        }
+
+        if (evt.getActionCommand().toLowerCase().startsWith("hint")) {
+            if (session == null) {
+                return;
+            }
+            final LogicalSolver.Step hint = session.getHint();
+            if (hint == null) {
+                textArea.setText(session.isSolved() ? "SOLVED!"
+                        : session.hasConflicts() ? "no hint, fix the marked conflicts first"
+                        : "no hint, an entry is wrong");
+                return;
+            }
+            final int row = hint.getCell() / Board.LENGTH;
+            final int col = hint.getCell() % Board.LENGTH;
+            table.changeSelection(row, col, false, false);
+            textArea.setText("hint: row " + (row + 1) + ", column " + (col + 1) + " is " + hint.getDigit()
+                    + " (" + hint.getTechnique().name().toLowerCase(Locale.ROOT).replace('_', ' ') + ")");
+            return;
+        }
+
+
+		if(evt.getActionCommand().toLowerCase().startsWith("solve")){
+            if (board == null) {
+                return;
+            }
+            solve();
+		}
+
+	}
+
+    /**
+     * generate a new puzzle on a background thread, the table is filled once it is done
+     */
+    private void generate() {
+        start(new SwingWorker<Board, Void>() {
+            @Override
+            protected Board doInBackground() throws Exception {
+                return Board.createBoard(false);
+            }
+
+            @Override
+            protected void done() {
+                finish();
+                try {
+                    showPuzzle(get());
+                    textArea.setText("generated in " + seconds() + " seconds");
+                } catch (CancellationException e) {
+                    textArea.setText("generation cancelled");
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(null, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+                }
+            }
+        }, null, "generating...");
+    }
+
+    /**
+     * solve the board on a background thread. the buttons that change the board are disabled
+     * until it is done, so the board is not touched by the event thread in the meantime.
+     */
+    private void solve() {
+        final Board target = board;
+        final CancellationToken cancel = new CancellationToken();
+        final SolveLimits limits = SolveLimits.NONE
+                .withTimeout(SOLVE_TIMEOUT_SEC, TimeUnit.SECONDS)
+                .withToken(cancel);
+        start(new SwingWorker<SolveResult, Void>() {
+            @Override
+            protected SolveResult doInBackground() {
+                return new Solver().solve(target, limits);
+            }
+
+            @Override
+            protected void done() {
+                finish();
+                final SolveResult result;
+                try {
+                    result = get();
+                } catch (CancellationException e) {
+                    textArea.setText("solve cancelled");
+                    return;
+                } catch (Exception e) {
+                    textArea.setText("couldn't solve: " + e.getCause());
+                    return;
+                }
+                if (result.isSolved()) {
+                    for (int row = 0; row < Board.LENGTH; row++) {
+                        for (int col = 0; col < Board.LENGTH; col++) {
+                            session.set(row, col, target.getBitBoard().get(row, col));
+                        }
+                    }
+                    updateTable(target.getTwoDBoard());
+                    textArea.setText("solved in " + seconds() + " seconds, " + result.getNodes() + " nodes");
+                } else {
+                    textArea.setText("couldn't solve, " + result.getStatus().name().toLowerCase(Locale.ROOT)
+                            + " after " + seconds() + " seconds");
+                }
+            }
+        }, cancel, "solving...");
+    }
+
+    /**
+     * runs on the event thread
+     * @param task work to run in the background
+     * @param cancel token of the task, null if it only stops through SwingWorker.cancel
+     * @param message shown while the task runs
+     */
+    private void start(final SwingWorker<?, ?> task, final CancellationToken cancel, final String message) {
+        worker = task;
+        token = cancel;
+        startNanos = System.nanoTime();
+        setBusy(true);
+        textArea.setText(message);
+        if (cancel != null) {
+            progressTimer.start();
+        }
+        task.execute();
+    }
+
+    /**
+     * runs on the event thread when the background task is done
+     */
+    private void finish() {
+        progressTimer.stop();
+        worker = null;
+        token = null;
+        setBusy(false);
+    }
+
+    private void setBusy(final boolean busy) {
+        generateSudoku.setEnabled(!busy);
+        loadFromFile.setEnabled(!busy);
+        checkAnswer.setEnabled(!busy);
+        hintButton.setEnabled(!busy);
+        solveButton.setEnabled(!busy);
+        cancelButton.setEnabled(busy);
+        table.setEnabled(!busy);
+    }
+
+    /**
+     * called by the timer on the event thread while a solve runs
+     */
+    private void showProgress() {
+        if (token == null) {
+            return;
+        }
+        final long nodes = token.getNodes();
+        final double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        textArea.setText(String.format(Locale.ROOT, "solving... %.1fs, %,d nodes, %,.0f nodes/s",
+                elapsed, nodes, elapsed == 0 ? 0 : nodes / elapsed));
+    }
+
+    private String seconds() {
+        return String.format(Locale.ROOT, "%.3f", (System.nanoTime() - startNanos) / 1e9);
+    }
+
+	private FileFilter getAcceptableFile() {
+        FileFilter retValue =  new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.getAbsolutePath().toLowerCase().endsWith(".txt");
+            }
+
+            @Override
+            public String getDescription() {
+                return "text file input";
+            }
+        };
+        return retValue;
+    }
+	public void print(String str){
+		System.out.println(str);
+	}
+}
@@ -1,16 +1,25 @@
-package puzzle;
-
-public class GuiInvoker {
-
-    public static void main(String[] args) {
-
-        final Runnable rn = () -> {
-            try {
-                GuiComponent.displayFrame();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        };
-        javax.swing.SwingUtilities.invokeLater(rn);
-    }
-}
+package puzzle;
+
+import java.awt.GraphicsEnvironment;
+
+public class GuiInvoker {
+
+    /**
+     * opens the gui, with arguments or without a display the CommandLine runs instead
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 || GraphicsEnvironment.isHeadless()) {
+            CommandLine.main(args);
+            return;
+        }
+
+        final Runnable rn = () -> {
+            try {
+                GuiComponent.displayFrame();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        };
+        javax.swing.SwingUtilities.invokeLater(rn);
+    }
+}
@@ -0,0 +1,90 @@
+package puzzle;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock free histogram of non negative longs, e.g. latencies in nanoseconds or node counts.
+ * values below 16 get a bucket each, larger values are bucketed by their highest bit and the
+ * 4 bits below it, so a percentile is reported at most 1/16 above the true value. record is
+ * safe to call from any number of threads and allocates nothing.
+ */
+public final class Histogram {
+    private final static int SUB_BITS = 4;
+    private final static int SUB_BUCKETS = 1 << SUB_BITS;
+    private final static int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param value value to count, negative values count as 0
+     */
+    public void record(final long value) {
+        counts.incrementAndGet(bucket(Math.max(value, 0)));
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        long retVal = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            retVal += counts.get(i);
+        }
+        return retVal;
+    }
+
+    /**
+     * @param percentile 0 - 100, e.g. 99 for the p99
+     * @return upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(final double percentile) {
+        final long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * @return upper bound of the highest non empty bucket, 0 if nothing was recorded
+     */
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long low = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,243 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * just enough json for the SolverServer payloads. objects become a Map, arrays a List,
+ * numbers a Double and true, false and null their java counterparts.
+ */
+final class Json {
+    /* deepest nesting of arrays and objects, the parser recurses once per level */
+    private final static int MAX_DEPTH = 32;
+
+    private final String text;
+    private int pos = 0;
+    private int depth = 0;
+
+    private Json(final String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text json document
+     * @return the parsed value
+     * @throws IllegalArgumentException if the text is not valid json
+     */
+    static Object parse(final String text) {
+        final Json json = new Json(text);
+        final Object retVal = json.value();
+        json.skipBlanks();
+        if (json.pos != text.length()) {
+            throw json.error("unexpected content");
+        }
+        return retVal;
+    }
+
+    /**
+     * append a string literal
+     * @param builder target
+     * @param value string to quote
+     * @return the builder
+     */
+    static StringBuilder quote(final StringBuilder builder, final String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+            }
+        }
+        return builder.append('"');
+    }
+
+    private Object value() {
+        skipBlanks();
+        if (pos == text.length()) {
+            throw error("unexpected end");
+        }
+        final char ch = text.charAt(pos);
+        switch (ch) {
+            case '{':
+                enter();
+                final Map<String, Object> object = object();
+                depth--;
+                return object;
+            case '[':
+                enter();
+                final List<Object> array = array();
+                depth--;
+                return array;
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        final Map<String, Object> retVal = new LinkedHashMap<>();
+        pos++;
+        skipBlanks();
+        if (peek('}')) {
+            return retVal;
+        }
+        do {
+            skipBlanks();
+            if (pos == text.length() || text.charAt(pos) != '"') {
+                throw error("expected a key");
+            }
+            final String key = string();
+            skipBlanks();
+            expect(':');
+            retVal.put(key, value());
+            skipBlanks();
+        } while (peek(','));
+        expect('}');
+        return retVal;
+    }
+
+    private List<Object> array() {
+        final List<Object> retVal = new ArrayList<>();
+        pos++;
+        skipBlanks();
+        if (peek(']')) {
+            return retVal;
+        }
+        do {
+            retVal.add(value());
+            skipBlanks();
+        } while (peek(','));
+        expect(']');
+        return retVal;
+    }
+
+    private String string() {
+        final StringBuilder builder = new StringBuilder();
+        pos++;
+        while (pos < text.length()) {
+            final char ch = text.charAt(pos++);
+            if (ch == '"') {
+                return builder.toString();
+            }
+            if (ch != '\\') {
+                builder.append(ch);
+                continue;
+            }
+            if (pos == text.length()) {
+                break;
+            }
+            final char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("bad unicode escape");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private Double number() {
+        final int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, pos));
+        } catch (NumberFormatException ex) {
+            pos = start;
+            throw error("unexpected character");
+        }
+    }
+
+    private Object literal(final String word, final Object value) {
+        if (!text.startsWith(word, pos)) {
+            throw error("unexpected character");
+        }
+        pos += word.length();
+        return value;
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("nested too deeply");
+        }
+    }
+
+    private boolean peek(final char ch) {
+        if (pos < text.length() && text.charAt(pos) == ch) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char ch) {
+        if (!peek(ch)) {
+            throw error("expected '" + ch + "'");
+        }
+    }
+
+    private void skipBlanks() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException("bad json, " + message + " at " + pos);
+    }
+}
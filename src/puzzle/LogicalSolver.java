@@ -0,0 +1,761 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * solves a puzzle the way a person would and rates it by the hardest technique it needed.
+ * every cell keeps an explicit candidate bitmask, the techniques are tried from the easiest
+ * to the hardest and after every step the search starts over with the easiest one. when no
+ * technique applies the solver guesses the right digit of the most constrained cell, which
+ * rates the puzzle as needing trial and error. the steps can be recorded and replayed.
+ *
+ * an instance is not thread safe, use one per thread.
+ */
+public class LogicalSolver {
+
+    /**
+     * techniques from the easiest to the hardest, the difficulty values follow the usual
+     * Sudoku Explainer scale
+     */
+    public enum Technique {
+        HIDDEN_SINGLE(1.5),
+        NAKED_SINGLE(2.3),
+        POINTING(2.6),
+        CLAIMING(2.8),
+        NAKED_PAIR(3.0),
+        X_WING(3.2),
+        HIDDEN_PAIR(3.4),
+        NAKED_TRIPLE(3.6),
+        SWORDFISH(3.8),
+        HIDDEN_TRIPLE(4.0),
+        XY_WING(4.2),
+        XY_CHAIN(4.6),
+        GUESS(10.0);
+
+        private final double difficulty;
+
+        Technique(final double difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        public double getDifficulty() {
+            return difficulty;
+        }
+    }
+
+    /**
+     * one deduction: either a placed digit or candidates removed from some cells
+     */
+    public static class Step {
+        private final Technique technique;
+        private final int cell;
+        private final int digit;
+        private final int[] cells;
+        private final int[] masks;
+
+        Step(final Technique technique, final int cell, final int digit, final int[] cells, final int[] masks) {
+            this.technique = technique;
+            this.cell = cell;
+            this.digit = digit;
+            this.cells = cells;
+            this.masks = masks;
+        }
+
+        public Technique getTechnique() {
+            return technique;
+        }
+
+        /**
+         * @return cell index of the placement, -1 for an elimination step
+         */
+        public int getCell() {
+            return cell;
+        }
+
+        /**
+         * @return placed digit, 0 for an elimination step
+         */
+        public int getDigit() {
+            return digit;
+        }
+
+        /**
+         * @return cells that lost candidates
+         */
+        public int[] getEliminationCells() {
+            return cells.clone();
+        }
+
+        /**
+         * @return removed candidates of every elimination cell, digit d is bit d - 1
+         */
+        public int[] getEliminationMasks() {
+            return masks.clone();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(technique.name());
+            if (cell >= 0) {
+                builder.append(' ').append(name(cell)).append('=').append(digit);
+            }
+            for (int i = 0; i < cells.length; i++) {
+                builder.append(' ').append(name(cells[i])).append('-');
+                for (int d = 1; d <= LENGTH; d++) {
+                    if ((masks[i] & (1 << (d - 1))) != 0) {
+                        builder.append(d);
+                    }
+                }
+            }
+            return builder.toString();
+        }
+
+        private static String name(final int index) {
+            return "r" + (BitBoard.ROW[index] + 1) + "c" + (BitBoard.COL[index] + 1);
+        }
+    }
+
+    /**
+     * result of rating a puzzle
+     */
+    public static class Rating {
+        private final Technique hardest;
+        private final int[] counts;
+        private final List<Step> steps;
+        private final boolean solved;
+
+        Rating(final Technique hardest, final int[] counts, final List<Step> steps, final boolean solved) {
+            this.hardest = hardest;
+            this.counts = counts;
+            this.steps = steps;
+            this.solved = solved;
+        }
+
+        /**
+         * @return hardest technique used, null if nothing had to be done, i.e. for a full board
+         * even though isSolved is true then
+         */
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /**
+         * @return difficulty of the hardest technique, 0 for a full board
+         */
+        public double getScore() {
+            return hardest == null ? 0 : hardest.getDifficulty();
+        }
+
+        /**
+         * @param technique technique
+         * @return number of steps that used it
+         */
+        public int getCount(final Technique technique) {
+            return counts[technique.ordinal()];
+        }
+
+        /**
+         * @return recorded steps, empty unless the rating was traced
+         */
+        public List<Step> getSteps() {
+            return steps;
+        }
+
+        /**
+         * a full board is solved without any step, getHardest is null for it
+         * @return false if the puzzle has no solution
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * @return true if the puzzle was solved without guessing
+         */
+        public boolean isLogical() {
+            return solved && counts[Technique.GUESS.ordinal()] == 0;
+        }
+
+        @Override
+        public String toString() {
+            if (!solved) {
+                return "unsolvable";
+            }
+            return getScore() + " (" + (hardest == null ? "no steps" : hardest) + ")";
+        }
+    }
+
+    private final static int[][] UNITS = BitBoard.UNITS;
+    private final static int[][] PEERS = BitBoard.PEERS;
+    private final static int MAX_CHAIN = CELLS;
+    /* bitmasks over 9 positions with 2 and 3 bits set */
+    private final static int[][] COMBINATIONS = new int[4][];
+
+    private final byte[] cells = new byte[CELLS];
+    private final int[] candidates = new int[CELLS];
+    private int filled;
+    private boolean broken;
+
+    private final int[] counts = new int[Technique.values().length];
+    private Technique hardest;
+    private List<Step> trace;
+    private BitBoard start;
+    private BitBoard solution;
+
+    /* eliminations of the step in progress */
+    private final int[] eliminationCells = new int[CELLS];
+    private final int[] eliminationMasks = new int[CELLS];
+    private int eliminationCount;
+
+    /* breadth first chain search over cell * 9 + value index */
+    private final int[] chainQueue = new int[CELLS * LENGTH];
+    private final int[] chainLength = new int[CELLS * LENGTH];
+    private final int[] chainSeen = new int[CELLS * LENGTH];
+    private int generation;
+
+    /**
+     * @param board puzzle to rate, not modified
+     * @return rating without step list
+     */
+    public Rating rate(final Board board) {
+        return rate(board.getBitBoard(), false);
+    }
+
+    /**
+     * @param board puzzle to rate, not modified
+     * @param traced true to record every step
+     * @return rating of the puzzle
+     */
+    public Rating rate(final Board board, final boolean traced) {
+        return rate(board.getBitBoard(), traced);
+    }
+
+    /**
+     * @param grid puzzle to rate, not modified
+     * @param traced true to record every step
+     * @return rating of the puzzle
+     */
+    public Rating rate(final BitBoard grid, final boolean traced) {
+        load(grid);
+        trace = traced ? new ArrayList<>() : null;
+        while (filled < CELLS && !broken) {
+            if (!applyEasiest() && !guess()) {
+                break;
+            }
+        }
+        final List<Step> steps = traced ? Collections.unmodifiableList(trace) : Collections.<Step>emptyList();
+        trace = null;
+        return new Rating(hardest, counts.clone(), steps, !broken && filled == CELLS);
+    }
+
+    /**
+     * the next digit a person could place in a position, found with the easiest techniques.
+     * eliminations on the way are not returned, the step names the hardest technique that
+     * was needed to reach the placement.
+     * @param grid position, not modified
+     * @return placement step, null if the position is full or has no solution
+     */
+    public Step nextPlacement(final BitBoard grid) {
+        load(grid);
+        trace = new ArrayList<>();
+        try {
+            int checked = 0;
+            while (filled < CELLS && !broken) {
+                if (!applyEasiest() && !guess()) {
+                    break;
+                }
+                for (; checked < trace.size(); checked++) {
+                    final Step step = trace.get(checked);
+                    if (step.cell >= 0) {
+                        return new Step(hardest, step.cell, step.digit, new int[0], new int[0]);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            trace = null;
+        }
+    }
+
+    /**
+     * apply recorded steps to a puzzle
+     * @param board puzzle the steps were recorded for, not modified
+     * @param steps steps to apply in order
+     * @return the board after the last step
+     * @throws IllegalArgumentException if a step does not fit the puzzle
+     */
+    public static Board replay(final Board board, final List<Step> steps) {
+        final LogicalSolver solver = new LogicalSolver();
+        solver.load(board.getBitBoard());
+        for (final Step step : steps) {
+            for (int i = 0; i < step.cells.length; i++) {
+                solver.candidates[step.cells[i]] &= ~step.masks[i];
+            }
+            if (step.cell >= 0) {
+                if ((solver.candidates[step.cell] & (1 << (step.digit - 1))) == 0) {
+                    throw new IllegalArgumentException("step does not fit the puzzle: " + step);
+                }
+                solver.place(step.cell, step.digit);
+            }
+        }
+        final BitBoard retVal = new BitBoard();
+        for (int i = 0; i < CELLS; i++) {
+            if (solver.cells[i] != 0) {
+                retVal.place(i, solver.cells[i]);
+            }
+        }
+        return new Board(retVal);
+    }
+
+    private void load(final BitBoard grid) {
+        start = grid;
+        solution = null;
+        filled = 0;
+        broken = false;
+        hardest = null;
+        eliminationCount = 0;
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = (byte) grid.get(i);
+            candidates[i] = grid.candidates(i);
+            if (cells[i] != 0) {
+                filled++;
+            }
+        }
+    }
+
+    /**
+     * @return true if a technique made progress
+     */
+    private boolean applyEasiest() {
+        return hiddenSingles()
+                || nakedSingles()
+                || pointing()
+                || claiming()
+                || nakedSubset(2, Technique.NAKED_PAIR)
+                || fish(2, Technique.X_WING)
+                || hiddenSubset(2, Technique.HIDDEN_PAIR)
+                || nakedSubset(3, Technique.NAKED_TRIPLE)
+                || fish(3, Technique.SWORDFISH)
+                || hiddenSubset(3, Technique.HIDDEN_TRIPLE)
+                || chains(3)
+                || chains(MAX_CHAIN);
+    }
+
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (final int[] unit : UNITS) {
+            int placed = 0;
+            int once = 0;
+            int twice = 0;
+            for (final int i : unit) {
+                if (cells[i] != 0) {
+                    placed |= 1 << (cells[i] - 1);
+                } else {
+                    twice |= once & candidates[i];
+                    once |= candidates[i];
+                }
+            }
+            if ((once | placed) != BitBoard.ALL_DIGITS) {
+                broken = true;
+                return true;
+            }
+            int hidden = once & ~twice;
+            while (hidden != 0) {
+                final int bit = hidden & -hidden;
+                hidden ^= bit;
+                final int cell = find(unit, bit);
+                if (cell < 0) {
+                    broken = true;
+                    return true;
+                }
+                placeStep(Technique.HIDDEN_SINGLE, cell, Integer.numberOfTrailingZeros(bit) + 1);
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] != 0) {
+                continue;
+            }
+            final int mask = candidates[i];
+            if (mask == 0) {
+                broken = true;
+                return true;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                placeStep(Technique.NAKED_SINGLE, i, Integer.numberOfTrailingZeros(mask) + 1);
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * a digit that is confined to one row or column inside a box can be removed from the
+     * rest of that row or column
+     */
+    private boolean pointing() {
+        for (int box = 2 * LENGTH; box < 3 * LENGTH; box++) {
+            for (int bit = 1; bit < BitBoard.ALL_DIGITS; bit <<= 1) {
+                int rows = 0;
+                int cols = 0;
+                for (final int i : UNITS[box]) {
+                    if ((candidates[i] & bit) != 0) {
+                        rows |= 1 << BitBoard.ROW[i];
+                        cols |= 1 << BitBoard.COL[i];
+                    }
+                }
+                if (rows == 0) {
+                    continue;
+                }
+                if (Integer.bitCount(rows) == 1) {
+                    eliminateOutside(UNITS[Integer.numberOfTrailingZeros(rows)], box, bit);
+                } else if (Integer.bitCount(cols) == 1) {
+                    eliminateOutside(UNITS[LENGTH + Integer.numberOfTrailingZeros(cols)], box, bit);
+                }
+                if (commit(Technique.POINTING)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * a digit that is confined to one box inside a row or column can be removed from the
+     * rest of that box
+     */
+    private boolean claiming() {
+        for (int line = 0; line < 2 * LENGTH; line++) {
+            for (int bit = 1; bit < BitBoard.ALL_DIGITS; bit <<= 1) {
+                int boxes = 0;
+                for (final int i : UNITS[line]) {
+                    if ((candidates[i] & bit) != 0) {
+                        boxes |= 1 << BitBoard.BOX[i];
+                    }
+                }
+                if (Integer.bitCount(boxes) == 1) {
+                    eliminateOutside(UNITS[2 * LENGTH + Integer.numberOfTrailingZeros(boxes)], line, bit);
+                    if (commit(Technique.CLAIMING)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * n cells of a unit that together hold exactly n candidates, those candidates can be
+     * removed from the other cells of the unit
+     */
+    private boolean nakedSubset(final int n, final Technique technique) {
+        for (final int[] unit : UNITS) {
+            for (final int positions : COMBINATIONS[n]) {
+                int union = 0;
+                boolean valid = true;
+                for (int p = 0; p < LENGTH && valid; p++) {
+                    if ((positions & (1 << p)) != 0) {
+                        final int i = unit[p];
+                        valid = cells[i] == 0;
+                        union |= candidates[i];
+                    }
+                }
+                if (!valid || Integer.bitCount(union) != n) {
+                    continue;
+                }
+                for (int p = 0; p < LENGTH; p++) {
+                    if ((positions & (1 << p)) == 0) {
+                        eliminate(unit[p], union);
+                    }
+                }
+                if (commit(technique)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * n digits of a unit that fit in exactly n cells, the other candidates of those cells
+     * can be removed
+     */
+    private boolean hiddenSubset(final int n, final Technique technique) {
+        for (final int[] unit : UNITS) {
+            int placed = 0;
+            for (final int i : unit) {
+                if (cells[i] != 0) {
+                    placed |= 1 << (cells[i] - 1);
+                }
+            }
+            for (final int digits : COMBINATIONS[n]) {
+                if ((digits & placed) != 0) {
+                    continue;
+                }
+                int count = 0;
+                int seen = 0;
+                for (final int i : unit) {
+                    if ((candidates[i] & digits) != 0) {
+                        count++;
+                        seen |= candidates[i] & digits;
+                    }
+                }
+                if (count != n || seen != digits) {
+                    continue;
+                }
+                for (final int i : unit) {
+                    if ((candidates[i] & digits) != 0) {
+                        eliminate(i, ~digits);
+                    }
+                }
+                if (commit(technique)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * x-wing (n = 2) and swordfish (n = 3): a digit whose places in n rows lie in n columns
+     * can be removed from the rest of those columns, and the same with rows and columns swapped
+     */
+    private boolean fish(final int n, final Technique technique) {
+        final int[] lines = new int[LENGTH];
+        for (int bit = 1; bit < BitBoard.ALL_DIGITS; bit <<= 1) {
+            for (int base = 0; base <= LENGTH; base += LENGTH) {
+                final int cover = LENGTH - base;
+                for (int line = 0; line < LENGTH; line++) {
+                    lines[line] = 0;
+                    final int[] unit = UNITS[base + line];
+                    for (int p = 0; p < LENGTH; p++) {
+                        if ((candidates[unit[p]] & bit) != 0) {
+                            lines[line] |= 1 << p;
+                        }
+                    }
+                }
+                for (final int chosen : COMBINATIONS[n]) {
+                    int union = 0;
+                    boolean valid = true;
+                    for (int line = 0; line < LENGTH && valid; line++) {
+                        if ((chosen & (1 << line)) != 0) {
+                            valid = lines[line] != 0;
+                            union |= lines[line];
+                        }
+                    }
+                    if (!valid || Integer.bitCount(union) != n) {
+                        continue;
+                    }
+                    for (int p = 0; p < LENGTH; p++) {
+                        if ((union & (1 << p)) == 0) {
+                            continue;
+                        }
+                        final int[] coverUnit = UNITS[cover + p];
+                        for (int line = 0; line < LENGTH; line++) {
+                            if ((chosen & (1 << line)) == 0) {
+                                eliminate(coverUnit[line], bit);
+                            }
+                        }
+                    }
+                    if (commit(technique)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * xy chains over cells with two candidates. if the first cell is not z the chain forces
+     * the last cell to be z, so z can be removed from every cell that sees both ends.
+     * a chain of 3 cells is an xy-wing. the chain is searched breadth first over (cell, value)
+     * pairs, so every pair is reached once and by the shortest chain.
+     * @param maxLength longest chain in cells
+     */
+    private boolean chains(final int maxLength) {
+        for (int first = 0; first < CELLS; first++) {
+            if (Integer.bitCount(candidates[first]) != 2) {
+                continue;
+            }
+            int ends = candidates[first];
+            while (ends != 0) {
+                final int z = ends & -ends;
+                ends ^= z;
+                if (chain(first, z, maxLength)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean chain(final int first, final int z, final int maxLength) {
+        generation++;
+        int head = 0;
+        int tail = 0;
+        final int startState = first * LENGTH + Integer.numberOfTrailingZeros(candidates[first] ^ z);
+        chainQueue[tail++] = startState;
+        chainSeen[startState] = generation;
+        chainLength[startState] = 1;
+        while (head < tail) {
+            final int state = chainQueue[head++];
+            final int current = state / LENGTH;
+            final int value = 1 << (state % LENGTH);
+            final int length = chainLength[state];
+            if (length == maxLength) {
+                continue;
+            }
+            for (final int next : PEERS[current]) {
+                final int mask = candidates[next];
+                if (next == first || Integer.bitCount(mask) != 2 || (mask & value) == 0) {
+                    continue;
+                }
+                final int other = mask ^ value;
+                final int nextState = next * LENGTH + Integer.numberOfTrailingZeros(other);
+                if (chainSeen[nextState] == generation) {
+                    continue;
+                }
+                chainSeen[nextState] = generation;
+                chainLength[nextState] = length + 1;
+                if (other == z && length + 1 >= 3) {
+                    for (final int i : PEERS[first]) {
+                        if (i != next && sees(i, next)) {
+                            eliminate(i, z);
+                        }
+                    }
+                    if (commit(length + 1 == 3 ? Technique.XY_WING : Technique.XY_CHAIN)) {
+                        return true;
+                    }
+                }
+                chainQueue[tail++] = nextState;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * place the solution digit of the most constrained cell
+     * @return false if the puzzle has no solution
+     */
+    private boolean guess() {
+        if (solution == null) {
+            final SearchEngine engine = SearchEngine.local();
+            if (!engine.solve(start)) {
+                broken = true;
+                return false;
+            }
+            solution = new BitBoard(engine.getSolution());
+        }
+        int best = -1;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] == 0 && (best < 0 || Integer.bitCount(candidates[i]) < Integer.bitCount(candidates[best]))) {
+                best = i;
+            }
+        }
+        placeStep(Technique.GUESS, best, solution.get(best));
+        return true;
+    }
+
+    private void placeStep(final Technique technique, final int cell, final int digit) {
+        place(cell, digit);
+        record(technique);
+        if (trace != null) {
+            trace.add(new Step(technique, cell, digit, new int[0], new int[0]));
+        }
+    }
+
+    private void place(final int cell, final int digit) {
+        final int bit = 1 << (digit - 1);
+        cells[cell] = (byte) digit;
+        candidates[cell] = 0;
+        filled++;
+        for (final int i : PEERS[cell]) {
+            candidates[i] &= ~bit;
+        }
+    }
+
+    private void eliminate(final int cell, final int mask) {
+        final int removed = candidates[cell] & mask;
+        if (removed == 0) {
+            return;
+        }
+        candidates[cell] &= ~removed;
+        eliminationCells[eliminationCount] = cell;
+        eliminationMasks[eliminationCount] = removed;
+        eliminationCount++;
+    }
+
+    private void eliminateOutside(final int[] unit, final int except, final int bit) {
+        for (final int i : unit) {
+            if (BitBoard.UNITS_OF[i][except / LENGTH] != except) {
+                eliminate(i, bit);
+            }
+        }
+    }
+
+    /**
+     * finish an elimination step
+     * @return true if anything was eliminated
+     */
+    private boolean commit(final Technique technique) {
+        if (eliminationCount == 0) {
+            return false;
+        }
+        record(technique);
+        if (trace != null) {
+            final int[] stepCells = new int[eliminationCount];
+            final int[] stepMasks = new int[eliminationCount];
+            System.arraycopy(eliminationCells, 0, stepCells, 0, eliminationCount);
+            System.arraycopy(eliminationMasks, 0, stepMasks, 0, eliminationCount);
+            trace.add(new Step(technique, -1, 0, stepCells, stepMasks));
+        }
+        eliminationCount = 0;
+        return true;
+    }
+
+    private void record(final Technique technique) {
+        counts[technique.ordinal()]++;
+        if (hardest == null || technique.ordinal() > hardest.ordinal()) {
+            hardest = technique;
+        }
+    }
+
+    private int find(final int[] unit, final int bit) {
+        for (final int i : unit) {
+            if ((candidates[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean sees(final int a, final int b) {
+        return BitBoard.ROW[a] == BitBoard.ROW[b] || BitBoard.COL[a] == BitBoard.COL[b]
+                || BitBoard.BOX[a] == BitBoard.BOX[b];
+    }
+
+    static {
+        for (int n = 2; n <= 3; n++) {
+            final List<Integer> masks = new ArrayList<>();
+            for (int mask = 0; mask < (1 << LENGTH); mask++) {
+                if (Integer.bitCount(mask) == n) {
+                    masks.add(mask);
+                }
+            }
+            COMBINATIONS[n] = masks.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package puzzle;
+
+/**
+ * receives the outcome of every solve of a Solver, e.g. to aggregate it in SolverMetrics or to
+ * forward it to a monitoring system. called on the solving thread, so an implementation must be
+ * thread safe and cheap.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+    /** drops everything, the default of a Solver */
+    MetricsSink NOOP = result -> { };
+
+    /**
+     * @param result outcome of one solve with its SolveStats
+     */
+    void record(SolveResult result);
+}
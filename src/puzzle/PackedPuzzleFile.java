@@ -0,0 +1,201 @@
+package puzzle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * read only, memory mapped access to a file of packed puzzles written by PackedPuzzleWriter.
+ * <pre>
+ * header (16 bytes, big endian)
+ *   int   magic        'S' 'D' 'K' 'P'
+ *   short version      1
+ *   short cells        81
+ *   int   record size  41
+ *   int   reserved     0
+ * records, one per puzzle
+ *   41 bytes, cell 2k in the high and cell 2k + 1 in the low nibble of byte k, 0 for empty
+ * </pre>
+ * the number of puzzles follows from the file size, so puzzle n is at a fixed offset and is
+ * read in constant time without touching the other records. files larger than 2GB are mapped
+ * in several segments. every read uses absolute positions, so one instance can be shared by
+ * many reading threads.
+ */
+public class PackedPuzzleFile implements Closeable {
+    public final static int MAGIC = ('S' << 24) | ('D' << 16) | ('K' << 8) | 'P';
+    public final static short VERSION = 1;
+    public final static int HEADER_SIZE = 16;
+    public final static int RECORD_SIZE = (CELLS + 1) / 2;
+    /* whole records per mapped segment */
+    private final static long RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_SIZE;
+    /* records copied out of the mapping at a time by verify */
+    private final static int VERIFY_CHUNK = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+
+    /**
+     * @param path file to map
+     * @throws IOException if the file cannot be read or is not a packed puzzle file
+     */
+    public PackedPuzzleFile(final Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            checkHeader(size);
+            count = (size - HEADER_SIZE) / RECORD_SIZE;
+            final int segmentCount = (int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                final long first = i * RECORDS_PER_SEGMENT;
+                final long records = Math.min(RECORDS_PER_SEGMENT, count - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return number of puzzles in the file
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * unpack puzzle n
+     * @param n puzzle number, starting at 0
+     * @param target receives 81 digits, 0 for empty cells
+     */
+    public void read(final long n, final byte[] target) {
+        if (n < 0 || n >= count) {
+            throw new IndexOutOfBoundsException("puzzle " + n + " of " + count);
+        }
+        final MappedByteBuffer segment = segments[(int) (n / RECORDS_PER_SEGMENT)];
+        final int offset = (int) (n % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i++) {
+            final int b = segment.get(offset + i);
+            target[2 * i] = (byte) ((b >> 4) & 0xF);
+            if (2 * i + 1 < CELLS) {
+                target[2 * i + 1] = (byte) (b & 0xF);
+            }
+        }
+    }
+
+    /**
+     * @param n puzzle number, starting at 0
+     * @return puzzle n as a board
+     * @throws Exception if the record breaks sudoku rules
+     */
+    public Board get(final long n) throws Exception {
+        final byte[] cells = new byte[CELLS];
+        read(n, cells);
+        return Board.fromCells(cells);
+    }
+
+    /**
+     * check that grids first ... first + count - 1 are complete and valid solutions, the records
+     * are checked in place without unpacking them, see GridVerifier
+     * @param first number of the first grid
+     * @param count number of grids
+     * @param results receives GridVerifier.VALID or the first violated unit of every grid, from index 0
+     * @return number of valid grids
+     */
+    public int verify(final long first, final int count, final int[] results) {
+        if (first < 0 || count < 0 || first + count > this.count) {
+            throw new IndexOutOfBoundsException("puzzles " + first + " - " + (first + count - 1) + " of " + this.count);
+        }
+        final byte[] chunk = new byte[Math.min(count, VERIFY_CHUNK) * RECORD_SIZE];
+        int valid = 0;
+        for (int done = 0; done < count; ) {
+            final long n = first + done;
+            final int inSegment = (int) (n % RECORDS_PER_SEGMENT);
+            final int records = (int) Math.min(Math.min(count - done, VERIFY_CHUNK), RECORDS_PER_SEGMENT - inSegment);
+            final ByteBuffer segment = segments[(int) (n / RECORDS_PER_SEGMENT)].duplicate();
+            segment.position(inSegment * RECORD_SIZE);
+            segment.get(chunk, 0, records * RECORD_SIZE);
+            valid += GridVerifier.verifyAll(chunk, 0, records, results, done);
+            done += records;
+        }
+        return valid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param size file size
+     * @throws IOException if the header does not describe this format
+     */
+    private void checkHeader(final long size) throws IOException {
+        if (size < HEADER_SIZE) {
+            throw new IOException("not a packed puzzle file, size " + size);
+        }
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            //read the whole header
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("not a packed puzzle file, bad magic");
+        }
+        final short version = header.getShort();
+        final short cells = header.getShort();
+        final int recordSize = header.getInt();
+        if (version != VERSION || cells != CELLS || recordSize != RECORD_SIZE) {
+            throw new IOException("unsupported packed puzzle file version " + version
+                    + " with " + cells + " cells and " + recordSize + " byte records");
+        }
+        if ((size - HEADER_SIZE) % RECORD_SIZE != 0) {
+            throw new IOException("truncated packed puzzle file");
+        }
+    }
+
+    /**
+     * pack 81 cells into a record
+     * @param cells 81 digits, 0 for empty
+     * @param target buffer receiving RECORD_SIZE bytes at its position
+     */
+    static void pack(final byte[] cells, final ByteBuffer target) {
+        for (int i = 0; i < CELLS; i += 2) {
+            final int high = cells[i] & 0xF;
+            final int low = i + 1 < CELLS ? cells[i + 1] & 0xF : 0;
+            target.put((byte) ((high << 4) | low));
+        }
+    }
+
+    /**
+     * pack 81 cells into a record, e.g. to build the input of GridVerifier in memory
+     * @param cells 81 digits, 0 for empty
+     * @param target array receiving RECORD_SIZE bytes
+     * @param offset first byte to write
+     */
+    public static void pack(final byte[] cells, final byte[] target, final int offset) {
+        pack(cells, ByteBuffer.wrap(target, offset, RECORD_SIZE));
+    }
+
+    /**
+     * write a header for this format
+     * @param target buffer receiving HEADER_SIZE bytes at its position
+     */
+    static void putHeader(final ByteBuffer target) {
+        target.putInt(MAGIC);
+        target.putShort(VERSION);
+        target.putShort((short) CELLS);
+        target.putInt(RECORD_SIZE);
+        target.putInt(0);
+    }
+}
@@ -0,0 +1,100 @@
+package puzzle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * writes puzzles in the packed 4 bits per cell format read by PackedPuzzleFile.
+ * records are collected in a buffer and written in large blocks. an instance is not thread safe.
+ */
+public class PackedPuzzleWriter implements Closeable {
+    private final static int RECORDS_PER_BLOCK = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_BLOCK * PackedPuzzleFile.RECORD_SIZE);
+    private final byte[] cells = new byte[CELLS];
+    private long count = 0;
+
+    /**
+     * creates or truncates the file and writes the header
+     * @param path target file
+     * @throws IOException if the file cannot be written
+     */
+    public PackedPuzzleWriter(final Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            PackedPuzzleFile.putHeader(buffer);
+            flush();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param puzzle 81 digits, 0 for empty cells
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a cell is not 0 - 9, nothing is written then
+     */
+    public void write(final byte[] puzzle) throws IOException {
+        if (puzzle.length != CELLS) {
+            throw new IllegalArgumentException("expected " + CELLS + " cells but found " + puzzle.length);
+        }
+        for (int i = 0; i < CELLS; i++) {
+            //a nibble holds up to 15, larger digits would only fail when the file is read
+            if (puzzle[i] < 0 || puzzle[i] > LENGTH) {
+                throw new IllegalArgumentException("cell " + i + " is " + puzzle[i] + ", expected 0 - " + LENGTH);
+            }
+        }
+        if (buffer.remaining() < PackedPuzzleFile.RECORD_SIZE) {
+            flush();
+        }
+        PackedPuzzleFile.pack(puzzle, buffer);
+        count++;
+    }
+
+    /**
+     * @param board board to write, filled cells are written as givens
+     * @throws IOException if writing fails
+     */
+    public void write(final Board board) throws IOException {
+        System.arraycopy(board.getBitBoard().cells, 0, cells, 0, CELLS);
+        write(cells);
+    }
+
+    /**
+     * @return number of puzzles written
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * write the buffered records to the file
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
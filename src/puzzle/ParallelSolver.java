@@ -0,0 +1,152 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * work stealing search for hard puzzles. every task runs a SearchEngine for a slice of
+ * nodes and, while the pool has idle workers, hands half of the untried branches of its
+ * shallowest branch point to a new task. the top levels of the search tree end up spread
+ * over the pool. the first task that finds a solution, or that finds the SolveLimits of
+ * the call exceeded, raises a shared stop flag which every other task checks cooperatively.
+ */
+public class ParallelSolver {
+    /* nodes a task searches before it checks whether it should split */
+    private final static long SLICE = 256;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * runs on the common fork join pool
+     */
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool that runs the search tasks
+     */
+    public ParallelSolver(final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * search for a solution of the given board
+     * @param start board to solve, not modified
+     * @return a solved copy of the board or null if it has no solution
+     */
+    public BitBoard solve(final BitBoard start) {
+        final SolveResult result = solve(start, SolveLimits.NONE.start());
+        return result.isSolved() ? result.getSolution().getBitBoard() : null;
+    }
+
+    /**
+     * search for a solution of the given board within limits
+     * @param board board to solve, not modified
+     * @param limits deadline, node budget and cancellation token, the node budget is shared by all tasks
+     * @return outcome, the solution is a solved copy of the board
+     */
+    public SolveResult solve(final Board board, final SolveLimits limits) {
+        return solve(board.getBitBoard(), limits.start());
+    }
+
+    SolveResult solve(final BitBoard start, final SolveLimits.Budget budget) {
+        final long begin = System.nanoTime();
+        final SearchEngine engine = new SearchEngine();
+        engine.load(start);
+        final boolean open = engine.prepare();
+        final long propagated = System.nanoTime();
+        if (!open) {
+            final BitBoard solution = engine.getSolution();
+            return new SolveResult(0, solution == null ? SolveResult.Status.UNSOLVABLE : SolveResult.Status.SOLVED,
+                    solution == null ? null : new Board(solution), propagated - begin,
+                    engine.getStats().withTimes(propagated - begin, 0));
+        }
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final AtomicReference<BitBoard> result = new AtomicReference<>();
+        final AtomicReference<SolveStats> stats = new AtomicReference<>(SolveStats.EMPTY);
+        engine.setStop(stop);
+        engine.setBudget(budget);
+        pool.invoke(new SearchTask(engine, stop, stopped, result, stats, budget));
+        final SolveResult.Status status;
+        if (result.get() != null) {
+            status = SolveResult.Status.SOLVED;
+        } else {
+            status = stopped.get() ? budget.stoppedStatus() : SolveResult.Status.UNSOLVABLE;
+        }
+        final long end = System.nanoTime();
+        return new SolveResult(0, status, result.get() == null ? null : new Board(result.get()),
+                end - begin, stats.get().withTimes(propagated - begin, end - propagated));
+    }
+
+    /**
+     * searches one part of the tree and forks off parts of it while other workers are idle
+     */
+    private static class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchEngine engine;
+        private final AtomicBoolean stop;
+        /* raised when the search was stopped by its limits */
+        private final AtomicBoolean stopped;
+        private final AtomicReference<BitBoard> result;
+        /* counters of the finished tasks */
+        private final AtomicReference<SolveStats> stats;
+        private final SolveLimits.Budget budget;
+        /* nodes of the engine already counted against the budget */
+        private long counted;
+
+        SearchTask(final SearchEngine engine, final AtomicBoolean stop, final AtomicBoolean stopped,
+                   final AtomicReference<BitBoard> result, final AtomicReference<SolveStats> stats,
+                   final SolveLimits.Budget budget) {
+            this.engine = engine;
+            this.stop = stop;
+            this.stopped = stopped;
+            this.result = result;
+            this.stats = stats;
+            this.budget = budget;
+            counted = engine.getNodeCount();
+        }
+
+        @Override
+        protected void compute() {
+            final List<SearchTask> forked = new ArrayList<>();
+            while (!stop.get()) {
+                if (getSurplusQueuedTaskCount() == 0) {
+                    final SearchEngine part = engine.split();
+                    if (part != null) {
+                        final SearchTask task = new SearchTask(part, stop, stopped, result, stats, budget);
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+                engine.setPauseAt(engine.getNodeCount() + SLICE);
+                final boolean solved = engine.next();
+                final boolean overBudget = budget.addNodes(engine.getNodeCount() - counted);
+                counted = engine.getNodeCount();
+                if (solved) {
+                    if (result.compareAndSet(null, new BitBoard(engine.getSolution()))) {
+                        stop.set(true);
+                    }
+                    break;
+                }
+                if (engine.isDone()) {
+                    break;
+                }
+                if (overBudget || budget.isOver()) {
+                    stopped.set(true);
+                    stop.set(true);
+                }
+            }
+            stats.accumulateAndGet(engine.getStats(), SolveStats::merge);
+            for (final SearchTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package puzzle;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.ALL_DIGITS;
+import static puzzle.BitBoard.BOX;
+import static puzzle.BitBoard.CELLS;
+import static puzzle.BitBoard.COL;
+import static puzzle.BitBoard.ROW;
+import static puzzle.BitBoard.UNITS_OF;
+
+/**
+ * the state of a puzzle while a person plays it. unlike a BitBoard the player may enter a
+ * digit that breaks the rules, so every row, column and box counts how often it holds each
+ * digit. an entry only touches the counters of its 3 units, which keeps candidates and
+ * conflicts up to date in constant time.
+ *
+ * the last solution found is kept along with the number of entries that disagree with it.
+ * as long as there are none the position is known to be solvable without searching, and a
+ * search from the current position is only started after an entry left that solution. its
+ * outcome is kept until the next change.
+ *
+ * an instance is not thread safe, it belongs to the event thread of the gui.
+ */
+public class PlaySession {
+    private final BitBoard givens;
+    private final byte[] cells = new byte[CELLS];
+    /* how often each of the 27 units holds each digit, unit * 9 + digit - 1 */
+    private final byte[] counts = new byte[3 * LENGTH * LENGTH];
+    /* digits used at least once by each unit */
+    private final int[] used = new int[3 * LENGTH];
+    /* digits used more than once by each unit */
+    private final int[] repeated = new int[3 * LENGTH];
+    private int conflictUnits = 0;
+    private int filled = 0;
+
+    /* last known solution and the filled cells that differ from it */
+    private byte[] solution;
+    private int mismatches;
+    /* outcome of the last search, valid until the next change */
+    private boolean searched = false;
+    private boolean solvable = true;
+
+    private final LogicalSolver hints = new LogicalSolver();
+
+    /**
+     * @param puzzle the filled cells are the givens, not modified
+     */
+    public PlaySession(final Board puzzle) {
+        givens = new BitBoard(puzzle.getBitBoard());
+        for (int i = 0; i < CELLS; i++) {
+            if (givens.get(i) != 0) {
+                enter(i, givens.get(i));
+            }
+        }
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return true if the cell is a given and can not be changed
+     */
+    public boolean isGiven(final int row, final int col) {
+        return givens.get(row, col) != 0;
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return digit in the cell, 0 if empty
+     */
+    public int get(final int row, final int col) {
+        return cells[BitBoard.index(row, col)];
+    }
+
+    /**
+     * enter or clear a digit. entries that break the rules are kept and reported as conflicts.
+     * @param row target row
+     * @param col target column
+     * @param digit 1 - 9, 0 to clear the cell
+     * @return false if the cell is a given or the digit out of range, nothing is changed then
+     */
+    public boolean set(final int row, final int col, final int digit) {
+        final int cell = BitBoard.index(row, col);
+        if (digit < 0 || digit > LENGTH || givens.get(cell) != 0) {
+            return false;
+        }
+        if (cells[cell] == digit) {
+            return true;
+        }
+        if (cells[cell] != 0) {
+            clear(cell);
+        }
+        if (digit != 0) {
+            enter(cell, digit);
+        }
+        searched = false;
+        return true;
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return digits not used by the row, column and box of an empty cell as a bitmask, digit d
+     * is bit d - 1, 0 for a filled cell
+     */
+    public int getCandidates(final int row, final int col) {
+        final int cell = BitBoard.index(row, col);
+        if (cells[cell] != 0) {
+            return 0;
+        }
+        return ~(used[ROW[cell]] | used[LENGTH + COL[cell]] | used[2 * LENGTH + BOX[cell]]) & ALL_DIGITS;
+    }
+
+    /**
+     * @param row target row
+     * @param col target column
+     * @return true if the digit of the cell is also in its row, column or box
+     */
+    public boolean isConflict(final int row, final int col) {
+        final int cell = BitBoard.index(row, col);
+        if (cells[cell] == 0) {
+            return false;
+        }
+        final int bit = 1 << (cells[cell] - 1);
+        return ((repeated[ROW[cell]] | repeated[LENGTH + COL[cell]] | repeated[2 * LENGTH + BOX[cell]]) & bit) != 0;
+    }
+
+    /**
+     * @return true if any unit holds a digit twice
+     */
+    public boolean hasConflicts() {
+        return conflictUnits > 0;
+    }
+
+    /**
+     * @return true if every cell is filled without conflicts
+     */
+    public boolean isSolved() {
+        return filled == CELLS && conflictUnits == 0;
+    }
+
+    /**
+     * @return true if the current entries can still be completed to a solution
+     */
+    public boolean isSolvable() {
+        if (conflictUnits > 0) {
+            return false;
+        }
+        if (solution != null && mismatches == 0) {
+            return true;
+        }
+        if (!searched) {
+            searched = true;
+            final SearchEngine engine = SearchEngine.local();
+            solvable = engine.solve(toBitBoard());
+            if (solvable) {
+                solution = engine.getSolution().toBytes();
+                mismatches = 0;
+            }
+        }
+        return solvable;
+    }
+
+    /**
+     * @return the solution the current entries lead to, null if there is none
+     */
+    public Board getSolution() {
+        if (!isSolvable()) {
+            return null;
+        }
+        final BitBoard retVal = new BitBoard();
+        for (int i = 0; i < CELLS; i++) {
+            retVal.place(i, solution[i]);
+        }
+        return new Board(retVal);
+    }
+
+    /**
+     * the next digit a person could place, see LogicalSolver.nextPlacement
+     * @return placement with the hardest technique needed for it, null if the board is full
+     * or the current entries have no solution
+     */
+    public LogicalSolver.Step getHint() {
+        if (filled == CELLS || !isSolvable()) {
+            return null;
+        }
+        return hints.nextPlacement(toBitBoard());
+    }
+
+    /**
+     * @return the current entries as a board, only valid without conflicts
+     */
+    private BitBoard toBitBoard() {
+        final BitBoard retVal = new BitBoard();
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] != 0) {
+                retVal.place(i, cells[i]);
+            }
+        }
+        return retVal;
+    }
+
+    private void enter(final int cell, final int digit) {
+        cells[cell] = (byte) digit;
+        filled++;
+        if (solution != null && solution[cell] != digit) {
+            mismatches++;
+        }
+        final int bit = 1 << (digit - 1);
+        for (final int unit : UNITS_OF[cell]) {
+            final int count = ++counts[unit * LENGTH + digit - 1];
+            used[unit] |= bit;
+            if (count == 2) {
+                if (repeated[unit] == 0) {
+                    conflictUnits++;
+                }
+                repeated[unit] |= bit;
+            }
+        }
+    }
+
+    private void clear(final int cell) {
+        final int digit = cells[cell];
+        cells[cell] = 0;
+        filled--;
+        if (solution != null && solution[cell] != digit) {
+            mismatches--;
+        }
+        final int bit = 1 << (digit - 1);
+        for (final int unit : UNITS_OF[cell]) {
+            final int count = --counts[unit * LENGTH + digit - 1];
+            if (count == 0) {
+                used[unit] &= ~bit;
+            } else if (count == 1) {
+                repeated[unit] &= ~bit;
+                if (repeated[unit] == 0) {
+                    conflictUnits--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package puzzle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * streaming reader for puzzle files of any size. two layouts are understood and can be mixed:
+ * <ul>
+ *     <li>one puzzle per line, 81 cells optionally followed by anything that does not start
+ *     with a digit or '.' (e.g. "puzzle,solution" csv files)</li>
+ *     <li>the 9 lines of 9 cells format read by Board.convertToBoard</li>
+ * </ul>
+ * 1 - 9 are givens, '.', '0', '_', '*' and blank are empty cells. lines that fit neither layout
+ * are skipped. the file is read through a fixed size buffer and parsed byte by byte straight into
+ * cell arrays, no String is created per line, so memory use does not depend on the input size.
+ * an instance is not thread safe.
+ */
+public class PuzzleReader implements Iterator<Board>, Closeable {
+    private final static int BUFFER_SIZE = 1 << 16;
+    /* longer lines are cut, only the first 82 bytes of a line matter */
+    private final static int MAX_LINE = 128;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] line = new byte[MAX_LINE];
+    private int lineLength = 0;
+    private boolean endOfInput = false;
+
+    /* rows of a 9 line puzzle read so far */
+    private final byte[] block = new byte[CELLS];
+    private int blockRows = 0;
+
+    private final byte[] cells = new byte[CELLS];
+    private Board pending = null;
+    private long skipped = 0;
+
+    /**
+     * @param channel source of the puzzles, closed by close()
+     */
+    public PuzzleReader(final ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * @param in source of the puzzles, closed by close()
+     */
+    public PuzzleReader(final InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    /**
+     * @param path file to read
+     * @return reader for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PuzzleReader open(final Path path) throws IOException {
+        return new PuzzleReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * read the next puzzle without checking sudoku rules
+     * @param target receives 81 digits, 0 for empty cells
+     * @return false at the end of the input
+     * @throws IOException if reading fails
+     */
+    public boolean read(final byte[] target) throws IOException {
+        while (nextLine()) {
+            if (lineLength >= CELLS && parse(0, CELLS, target, 0)
+                    && (lineLength == CELLS || isSeparator(line[CELLS]))) {
+                blockRows = 0;
+                return true;
+            }
+            if (lineLength == LENGTH && parse(0, LENGTH, block, blockRows * LENGTH)) {
+                blockRows++;
+                if (blockRows == LENGTH) {
+                    System.arraycopy(block, 0, target, 0, CELLS);
+                    blockRows = 0;
+                    return true;
+                }
+                continue;
+            }
+            blockRows = 0;
+        }
+        return false;
+    }
+
+    /**
+     * puzzles that break sudoku rules are skipped, see getSkippedCount
+     * @return true if there is another valid puzzle
+     */
+    @Override
+    public boolean hasNext() {
+        if (pending != null) {
+            return true;
+        }
+        try {
+            while (read(cells)) {
+                final Board board = new Board();
+                if (board.load(cells)) {
+                    pending = board;
+                    return true;
+                }
+                skipped++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return false;
+    }
+
+    @Override
+    public Board next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Board retVal = pending;
+        pending = null;
+        return retVal;
+    }
+
+    /**
+     * @return number of puzzles skipped by hasNext/next because they break sudoku rules
+     */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * lazy stream of the remaining valid puzzles, closing the stream closes the reader
+     * @return sequential ordered stream
+     */
+    public Stream<Board> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * copy the next line into the line buffer without the line break
+     * @return false at the end of the input
+     * @throws IOException if reading fails
+     */
+    private boolean nextLine() throws IOException {
+        lineLength = 0;
+        boolean any = false;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (endOfInput || !fill()) {
+                    return any;
+                }
+            }
+            final byte[] bytes = buffer.array();
+            final int end = buffer.limit();
+            int pos = buffer.position();
+            while (pos < end) {
+                final byte b = bytes[pos++];
+                if (b == '\n') {
+                    buffer.position(pos);
+                    if (lineLength > 0 && lineLength <= MAX_LINE && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    return true;
+                }
+                any = true;
+                if (lineLength < MAX_LINE) {
+                    line[lineLength] = b;
+                }
+                lineLength++;
+            }
+            buffer.position(pos);
+        }
+    }
+
+    /**
+     * @return false if the channel has no more data
+     * @throws IOException if reading fails
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param from first byte of the line to parse
+     * @param count number of cells
+     * @param target cell array
+     * @param offset first cell to write
+     * @return false if one of the bytes is not a cell
+     */
+    private boolean parse(final int from, final int count, final byte[] target, final int offset) {
+        for (int i = 0; i < count; i++) {
+            final int digit = toDigit(line[from + i]);
+            if (digit < 0) {
+                return false;
+            }
+            target[offset + i] = (byte) digit;
+        }
+        return true;
+    }
+
+    /**
+     * @param b byte after the 81 cells of a one line puzzle
+     * @return true if the byte ends the puzzle
+     */
+    private static boolean isSeparator(final byte b) {
+        return (b < '0' || b > '9') && b != '.';
+    }
+
+    /**
+     * @param b input byte
+     * @return 1 - 9 for givens, 0 for empty cells and -1 for anything else
+     */
+    private static int toDigit(final byte b) {
+        if (b >= '1' && b <= '9') {
+            return b - '0';
+        }
+        if (b == '.' || b == '0' || b == ' ' || b == '_' || b == '*') {
+            return 0;
+        }
+        return -1;
+    }
+}
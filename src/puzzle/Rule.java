@@ -0,0 +1,81 @@
+package puzzle;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * a variant rule on top of the classic 9x9 rules. a rule does not check anything itself, it
+ * describes its constraints to a RuleSet.Builder as regions (9 cells holding every digit once),
+ * pairs of cells that may not hold the same digit, replaced boxes and killer cages. the rule
+ * set compiles all of them into unit and peer tables once, the engines only read the tables.
+ */
+public interface Rule {
+
+    /**
+     * @param builder receives the constraints of this rule
+     */
+    void addTo(RuleSet.Builder builder);
+
+    /** both main diagonals hold every digit once */
+    Rule DIAGONALS = builder -> {
+        final int[] main = new int[LENGTH];
+        final int[] anti = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            main[i] = BitBoard.index(i, i);
+            anti[i] = BitBoard.index(i, LENGTH - 1 - i);
+        }
+        builder.addRegion(main);
+        builder.addRegion(anti);
+    };
+
+    /** cells a chess knight's move apart may not hold the same digit */
+    Rule ANTI_KNIGHT = builder -> {
+        final int[][] moves = {{1, 2}, {2, 1}, {2, -1}, {1, -2}};
+        for (int i = 0; i < CELLS; i++) {
+            for (final int[] move : moves) {
+                final int row = BitBoard.ROW[i] + move[0];
+                final int col = BitBoard.COL[i] + move[1];
+                if (row < LENGTH && col >= 0 && col < LENGTH) {
+                    builder.addExclusion(i, BitBoard.index(row, col));
+                }
+            }
+        }
+    };
+
+    /**
+     * irregular regions instead of the 3x3 boxes
+     * @param regionOfCell region 0 - 8 of every cell index, 9 cells per region
+     * @return the rule
+     */
+    static Rule jigsaw(final int[] regionOfCell) {
+        if (regionOfCell.length != CELLS) {
+            throw new IllegalArgumentException("expected " + CELLS + " cells but found " + regionOfCell.length);
+        }
+        final int[][] regions = new int[LENGTH][LENGTH];
+        final int[] fill = new int[LENGTH];
+        for (int i = 0; i < CELLS; i++) {
+            final int region = regionOfCell[i];
+            if (region < 0 || region >= LENGTH || fill[region] == LENGTH) {
+                throw new IllegalArgumentException("region " + region + " of cell " + i + " is not one of 9 regions of 9 cells");
+            }
+            regions[region][fill[region]++] = i;
+        }
+        return builder -> {
+            builder.removeBoxes();
+            for (final int[] region : regions) {
+                builder.addRegion(region);
+            }
+        };
+    }
+
+    /**
+     * killer cage: the digits of the cells are different and add up to the sum
+     * @param sum sum of the cage
+     * @param cells cell indexes of the cage
+     * @return the rule
+     */
+    static Rule cage(final int sum, final int... cells) {
+        final int[] copy = cells.clone();
+        return builder -> builder.addCage(sum, copy);
+    }
+}
@@ -0,0 +1,231 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * the rules of a 9x9 puzzle compiled into index tables: the units (regions of 9 cells that hold
+ * every digit once), the peers of every cell (cells that may not hold the same digit) and the
+ * killer cages with their sums. the tables are built once from the rules, checking an entry is
+ * then a walk over the peers of one cell and the engines never look at the rules again.
+ *
+ * the classic rule set has exactly the rows, columns and boxes and is solved by SearchEngine,
+ * variant rule sets by VariantEngine. an instance is immutable.
+ */
+public final class RuleSet {
+    public final static RuleSet CLASSIC = of();
+
+    final int[][] units;
+    final int[][] peers;
+    final int[][] cages;
+    final int[] cageSums;
+    /* cage of every cell, -1 if the cell is in none */
+    final int[] cageOf;
+    private final boolean classic;
+
+    private RuleSet(final Builder builder) {
+        units = builder.regions.toArray(new int[0][]);
+        peers = new int[CELLS][];
+        for (int i = 0; i < CELLS; i++) {
+            final int[] buffer = new int[CELLS];
+            int count = 0;
+            for (int j = 0; j < CELLS; j++) {
+                if (builder.peer[i][j]) {
+                    buffer[count++] = j;
+                }
+            }
+            peers[i] = Arrays.copyOf(buffer, count);
+        }
+        cages = builder.cages.toArray(new int[0][]);
+        cageSums = new int[cages.length];
+        cageOf = new int[CELLS];
+        Arrays.fill(cageOf, -1);
+        for (int c = 0; c < cages.length; c++) {
+            cageSums[c] = builder.sums.get(c);
+            for (final int i : cages[c]) {
+                cageOf[i] = c;
+            }
+        }
+        classic = builder.classic;
+    }
+
+    /**
+     * @param rules variant rules on top of the classic ones
+     * @return the compiled rule set
+     */
+    public static RuleSet of(final Rule... rules) {
+        final Builder builder = new Builder();
+        for (final Rule rule : rules) {
+            rule.addTo(builder);
+        }
+        builder.finish();
+        return new RuleSet(builder);
+    }
+
+    /**
+     * @return true if only the classic rows, columns and boxes apply
+     */
+    public boolean isClassic() {
+        return classic;
+    }
+
+    /**
+     * @param cells 81 digits, 0 for empty cells
+     * @param index target cell
+     * @param digit digit to check, 1 - 9
+     * @return true if the digit breaks no rule given the other cells
+     */
+    public boolean canPlace(final byte[] cells, final int index, final int digit) {
+        if (digit < 1 || digit > LENGTH) {
+            return false;
+        }
+        for (final int peer : peers[index]) {
+            if (cells[peer] == digit) {
+                return false;
+            }
+        }
+        final int cage = cageOf[index];
+        if (cage < 0) {
+            return true;
+        }
+        int sum = digit;
+        boolean full = true;
+        for (final int i : cages[cage]) {
+            if (i != index) {
+                sum += cells[i];
+                full &= cells[i] != 0;
+            }
+        }
+        return full ? sum == cageSums[cage] : sum < cageSums[cage];
+    }
+
+    /**
+     * @param cells 81 digits, 0 for empty cells
+     * @return true if no filled cell breaks a rule
+     */
+    public boolean isValid(final byte[] cells) {
+        if (cells.length != CELLS) {
+            return false;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] != 0 && !canPlace(cells, i, cells[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param cells 81 digits, 0 for empty cells
+     * @return true if every cell is filled and no rule is broken
+     */
+    public boolean isSolved(final byte[] cells) {
+        for (final byte cell : cells) {
+            if (cell == 0) {
+                return false;
+            }
+        }
+        return isValid(cells);
+    }
+
+    /**
+     * collects the constraints of the rules, see Rule
+     */
+    public static final class Builder {
+        private final List<int[]> regions = new ArrayList<>();
+        private final boolean[][] peer = new boolean[CELLS][CELLS];
+        private final List<int[]> cages = new ArrayList<>();
+        private final List<Integer> sums = new ArrayList<>();
+        private final int[] cageOf = new int[CELLS];
+        private boolean boxes = true;
+        private boolean classic = true;
+
+        private Builder() {
+            Arrays.fill(cageOf, -1);
+            for (int unit = 0; unit < 2 * LENGTH; unit++) {
+                regions.add(BitBoard.UNITS[unit].clone());
+            }
+        }
+
+        /**
+         * @param cells 9 different cells that hold every digit once
+         */
+        public void addRegion(final int[] cells) {
+            if (cells.length != LENGTH || Arrays.stream(cells).distinct().count() != LENGTH) {
+                throw new IllegalArgumentException("a region needs " + LENGTH + " different cells");
+            }
+            regions.add(cells.clone());
+            classic = false;
+        }
+
+        /**
+         * the 3x3 boxes do not apply, the rule adds other regions instead
+         */
+        public void removeBoxes() {
+            boxes = false;
+            classic = false;
+        }
+
+        /**
+         * @param a first cell
+         * @param b second cell, may not hold the same digit as the first
+         */
+        public void addExclusion(final int a, final int b) {
+            if (a != b) {
+                peer[a][b] = true;
+                peer[b][a] = true;
+                classic = false;
+            }
+        }
+
+        /**
+         * @param sum sum of the digits of the cage
+         * @param cells different cells, every cell belongs to at most one cage
+         */
+        public void addCage(final int sum, final int[] cells) {
+            if (cells.length == 0 || cells.length > LENGTH || Arrays.stream(cells).distinct().count() != cells.length) {
+                throw new IllegalArgumentException("a cage needs 1 to " + LENGTH + " different cells");
+            }
+            final int min = cells.length * (cells.length + 1) / 2;
+            final int max = cells.length * (2 * LENGTH - cells.length + 1) / 2;
+            if (sum < min || sum > max) {
+                throw new IllegalArgumentException("sum " + sum + " is impossible for " + cells.length + " cells");
+            }
+            for (final int i : cells) {
+                if (cageOf[i] >= 0) {
+                    throw new IllegalArgumentException("cell " + i + " is in two cages");
+                }
+                cageOf[i] = cages.size();
+            }
+            for (final int a : cells) {
+                for (final int b : cells) {
+                    addExclusion(a, b);
+                }
+            }
+            cages.add(cells.clone());
+            sums.add(sum);
+            classic = false;
+        }
+
+        private void finish() {
+            if (boxes) {
+                for (int unit = 2 * LENGTH; unit < 3 * LENGTH; unit++) {
+                    regions.add(BitBoard.UNITS[unit].clone());
+                }
+            }
+            for (final int[] region : regions) {
+                for (final int a : region) {
+                    for (final int b : region) {
+                        if (a != b) {
+                            peer[a][b] = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
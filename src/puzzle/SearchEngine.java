@@ -0,0 +1,447 @@
+package puzzle;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static puzzle.Board.LENGTH;
+import static puzzle.BitBoard.ALL_DIGITS;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * constraint propagation solver. before every branch the board is reduced with
+ * naked singles (a cell with one candidate) and hidden singles (a digit with one
+ * possible cell in a row, column or box). the search then branches on the empty
+ * cell with the fewest candidates (minimum remaining values).
+ *
+ * the search works on a single board in place. every placement is pushed on an undo
+ * trail and every branch point is a frame on an explicit stack, so backtracking is
+ * popping the trail back to the frame's mark. after load nothing is allocated, and
+ * since the whole state lives in fields the search can be resumed with next() to
+ * find further solutions.
+ *
+ * the search can also pause after a number of nodes, when a shared stop flag is raised
+ * or when the SolveLimits of the call are exceeded, and the untried branches of a paused
+ * search can be handed to another engine with split(). an engine is not thread safe,
+ * use one per thread.
+ */
+public final class SearchEngine {
+    private final static int[][] UNITS = BitBoard.UNITS;
+
+    private final static int FRESH = 0;
+    private final static int RUNNING = 1;
+    private final static int SOLVED = 2;
+    private final static int DONE = 3;
+    private final static int PAUSED = 4;
+
+    /* engine reused by all single threaded searches of a thread */
+    private final static ThreadLocal<SearchEngine> LOCAL = ThreadLocal.withInitial(SearchEngine::new);
+
+    /* how often the shared stop flag and the budget are read, must be a power of 2 */
+    private final static int STOP_CHECK_INTERVAL = SolveLimits.CHECK_INTERVAL;
+
+    private final BitBoard grid = new BitBoard();
+
+    /* cells filled since load, in order */
+    private final int[] trail = new int[CELLS];
+    private int trailTop = 0;
+
+    /* branch points: the cell, the candidates not tried yet and the trail size before the branch */
+    private final int[] frameCell = new int[CELLS];
+    private final int[] frameCandidates = new int[CELLS];
+    private final int[] frameTrail = new int[CELLS];
+    private int depth = 0;
+
+    private int state = DONE;
+
+    /* branches tried since load, and the other SolveStats counters */
+    private long nodes = 0;
+    private long backtracks = 0;
+    private long guesses = 0;
+    private int maxDepth = 0;
+    private long propagations = 0;
+    private long propagateNanos = 0;
+    private long searchNanos = 0;
+    private long pauseAt = Long.MAX_VALUE;
+    private AtomicBoolean stop = null;
+    private SolveLimits.Budget budget = null;
+
+    /**
+     * the calling thread's engine. it is shared by every caller on the thread, so a search
+     * must be finished before another one is started on it.
+     * @return engine of the calling thread
+     */
+    static SearchEngine local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * reset the engine to a copy of the given board
+     * @param start board to solve, not modified
+     */
+    public void load(final BitBoard start) {
+        grid.copyFrom(start);
+        trailTop = 0;
+        depth = 0;
+        nodes = 0;
+        backtracks = 0;
+        guesses = 0;
+        maxDepth = 0;
+        propagations = 0;
+        propagateNanos = 0;
+        searchNanos = 0;
+        state = FRESH;
+    }
+
+    /**
+     * solves a copy of the given board
+     * @param start board to solve, not modified
+     * @return true if a solution was found
+     */
+    public boolean solve(final BitBoard start) {
+        load(start);
+        return next();
+    }
+
+    /**
+     * solves a copy of the given board within a budget
+     * @param start board to solve, not modified
+     * @param limits deadline, node budget and token of the call
+     * @return SOLVED, UNSOLVABLE or the reason the search stopped early
+     */
+    SolveResult.Status solve(final BitBoard start, final SolveLimits.Budget limits) {
+        load(start);
+        pauseAt = limits.getMaxNodes();
+        budget = limits;
+        try {
+            final long begin = System.nanoTime();
+            final boolean open = prepare();
+            final long propagated = System.nanoTime();
+            final boolean solved = open ? next() : state == SOLVED;
+            propagateNanos = propagated - begin;
+            searchNanos = System.nanoTime() - propagated;
+            if (solved) {
+                return SolveResult.Status.SOLVED;
+            }
+            return isDone() ? SolveResult.Status.UNSOLVABLE : limits.stoppedStatus();
+        } finally {
+            pauseAt = Long.MAX_VALUE;
+            budget = null;
+        }
+    }
+
+    /**
+     * count the solutions of a board, stops as soon as the limit is reached
+     * @param start board to solve, not modified
+     * @param limit maximum number of solutions to look for, 2 is enough to check uniqueness
+     * @return number of solutions, at most limit
+     */
+    public int countSolutions(final BitBoard start, final int limit) {
+        load(start);
+        int count = 0;
+        while (count < limit && next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * continue the search from where the last call stopped
+     * @return true if another solution was found
+     */
+    public boolean next() {
+        if (state == DONE) {
+            return false;
+        }
+        if (state == FRESH && !prepare()) {
+            return state == SOLVED;
+        }
+        state = RUNNING;
+
+        while (depth > 0) {
+            if (++nodes >= pauseAt
+                    || ((nodes & (STOP_CHECK_INTERVAL - 1)) == 0 && isStopped())) {
+                state = PAUSED;
+                return false;
+            }
+            final int top = depth - 1;
+            undo(frameTrail[top]);
+            final int candidates = frameCandidates[top];
+            if (candidates == 0) {
+                depth--;
+                continue;
+            }
+            final int bit = candidates & -candidates;
+            frameCandidates[top] = candidates ^ bit;
+            assign(frameCell[top], Integer.numberOfTrailingZeros(bit) + 1);
+            if (!propagate()) {
+                backtracks++;
+                continue;
+            }
+            if (grid.isSolved()) {
+                state = SOLVED;
+                return true;
+            }
+            push();
+        }
+        state = DONE;
+        return false;
+    }
+
+    /**
+     * propagate the loaded board and open the first branch point without searching
+     * @return true if there is something left to search
+     */
+    boolean prepare() {
+        if (state != FRESH) {
+            return state != DONE && state != SOLVED;
+        }
+        state = RUNNING;
+        if (!propagate()) {
+            state = DONE;
+            return false;
+        }
+        if (grid.isSolved()) {
+            state = SOLVED;
+            return false;
+        }
+        push();
+        return true;
+    }
+
+    /**
+     * hand half of the untried branches of the shallowest branch point to a new engine.
+     * only valid while the search is not running, e.g. after prepare, a pause or a solution.
+     * @return engine searching the given away branches or null if there is nothing to give
+     */
+    SearchEngine split() {
+        if (state != RUNNING && state != PAUSED && state != SOLVED) {
+            return null;
+        }
+        for (int k = 0; k < depth; k++) {
+            final int candidates = frameCandidates[k];
+            final int count = Integer.bitCount(candidates);
+            //the top frame keeps at least one branch, lower frames are still busy with their current one
+            if (count == 0 || (count == 1 && k == depth - 1)) {
+                continue;
+            }
+            int give = candidates;
+            for (int keep = count - count / 2; count > 1 && keep > 0; keep--) {
+                give &= give - 1;
+            }
+            frameCandidates[k] = candidates ^ give;
+
+            final SearchEngine part = new SearchEngine();
+            part.grid.copyFrom(grid);
+            System.arraycopy(trail, 0, part.trail, 0, trailTop);
+            part.trailTop = trailTop;
+            part.undo(frameTrail[k]);
+            part.frameCell[0] = frameCell[k];
+            part.frameCandidates[0] = give;
+            part.frameTrail[0] = frameTrail[k];
+            part.depth = 1;
+            part.state = PAUSED;
+            part.stop = stop;
+            part.budget = budget;
+            return part;
+        }
+        return null;
+    }
+
+    /**
+     * @param nodeCount the search pauses after this many branches since load, Long.MAX_VALUE for never
+     */
+    void setPauseAt(final long nodeCount) {
+        pauseAt = nodeCount;
+    }
+
+    /**
+     * @param flag once set the search pauses at its next check, null for none
+     */
+    void setStop(final AtomicBoolean flag) {
+        stop = flag;
+    }
+
+    /**
+     * @param limits budget checked along with the stop flag, null for none
+     */
+    void setBudget(final SolveLimits.Budget limits) {
+        budget = limits;
+    }
+
+    /**
+     * @return true if the stop flag is raised or the budget is over
+     */
+    private boolean isStopped() {
+        return (stop != null && stop.get()) || (budget != null && budget.checkpoint());
+    }
+
+    /**
+     * @return true if the search space is exhausted
+     */
+    boolean isDone() {
+        return state == DONE;
+    }
+
+    /**
+     * @return number of branches tried since load
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * counters since load. the phase times are only measured by solve with a budget.
+     * @return stats of the search
+     */
+    SolveStats getStats() {
+        return new SolveStats(nodes, backtracks, guesses, maxDepth, propagations, false, 0,
+                propagateNanos, searchNanos);
+    }
+
+    /**
+     * the engine's board. after a successful solve or next it holds the solution,
+     * it is only valid until the engine is used again.
+     * @return solved board of the last successful search, null otherwise
+     */
+    public BitBoard getSolution() {
+        return state == SOLVED ? grid : null;
+    }
+
+    /**
+     * @return the board the engine is working on
+     */
+    BitBoard getBoard() {
+        return grid;
+    }
+
+    /**
+     * fill every cell that is forced by naked or hidden singles until nothing changes
+     * @return false if the board has a contradiction
+     */
+    public boolean propagate() {
+        final byte[] cells = grid.cells;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            //naked singles
+            for (int i = 0; i < CELLS; i++) {
+                if (cells[i] != 0) {
+                    continue;
+                }
+                final int candidates = grid.candidates(i);
+                if (candidates == 0) {
+                    return false;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    assign(i, Integer.numberOfTrailingZeros(candidates) + 1);
+                    propagations++;
+                    changed = true;
+                }
+            }
+
+            //hidden singles
+            for (final int[] unit : UNITS) {
+                int used = 0;
+                int once = 0;
+                int twice = 0;
+                for (final int i : unit) {
+                    if (cells[i] != 0) {
+                        used |= 1 << (cells[i] - 1);
+                    } else {
+                        final int candidates = grid.candidates(i);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    }
+                }
+                if ((once | used) != ALL_DIGITS) {
+                    return false;
+                }
+                int hidden = once & ~twice & ~used;
+                while (hidden != 0) {
+                    final int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    final int cell = findCell(unit, bit);
+                    if (cell < 0) {
+                        return false;
+                    }
+                    assign(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                    propagations++;
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * place a digit and record it on the trail
+     * @param cell cell index
+     * @param digit 1 - 9
+     */
+    private void assign(final int cell, final int digit) {
+        grid.place(cell, digit);
+        trail[trailTop++] = cell;
+    }
+
+    /**
+     * take back placements until the trail has the given size
+     * @param mark trail size to go back to
+     */
+    private void undo(final int mark) {
+        while (trailTop > mark) {
+            grid.remove(trail[--trailTop]);
+        }
+    }
+
+    /**
+     * open a branch point on the most constrained cell
+     */
+    private void push() {
+        final int cell = mostConstrainedCell(grid);
+        frameCell[depth] = cell;
+        frameCandidates[depth] = grid.candidates(cell);
+        frameTrail[depth] = trailTop;
+        depth++;
+        guesses++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * @param unit cells of a unit
+     * @param bit candidate bit
+     * @return the empty cell of the unit that can take the candidate, -1 if there is none
+     */
+    private int findCell(final int[] unit, final int bit) {
+        for (final int i : unit) {
+            if ((grid.candidates(i) & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param grid board with at least one empty cell
+     * @return the empty cell with the fewest candidates
+     */
+    static int mostConstrainedCell(final BitBoard grid) {
+        int best = -1;
+        int bestCount = LENGTH + 1;
+        for (int i = 0; i < CELLS; i++) {
+            if (grid.cells[i] != 0) {
+                continue;
+            }
+            final int count = Integer.bitCount(grid.candidates(i));
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+                if (count <= 2) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
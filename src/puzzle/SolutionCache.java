@@ -0,0 +1,169 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * bounded least recently used cache of solutions keyed by the canonical form of the puzzle, so
+ * a puzzle that is only rotated, transposed, shuffled or relabeled compared to a cached one is a
+ * hit as well. puzzles and solutions are stored packed at 4 bits per cell. all methods are
+ * synchronized, one cache can be shared by any number of Solvers and threads.
+ *
+ * a lookup costs a canonicalization, tens of microseconds, which is more than solving an easy
+ * puzzle from scratch. the cache pays off for hard puzzles and for traffic that repeats them.
+ */
+public class SolutionCache {
+    /* 81 cells of 4 bits in 6 longs */
+    private final static int WORDS = (CELLS * 4 + 63) / 64;
+    /* map entry, key object and the two packed arrays with their headers */
+    private final static long ENTRY_BYTES = 48 + 24 + 2 * (16 + 8 * WORDS);
+
+    private final int capacity;
+    private final Map<Key, long[]> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param capacity maximum number of cached solutions
+     */
+    public SolutionCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive but was " + capacity);
+        }
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Key, long[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, long[]> eldest) {
+                if (size() > SolutionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param form canonical form of the puzzle
+     * @return the cached solution in the orientation of the puzzle the form was made from,
+     * 81 digits, null if there is none
+     */
+    public byte[] get(final CanonicalForm form) {
+        final long[] solution;
+        synchronized (this) {
+            solution = entries.get(new Key(pack(form.getCells())));
+            if (solution == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        return form.fromCanonical(unpack(solution));
+    }
+
+    /**
+     * @param form canonical form of the puzzle
+     * @param solution 81 digits solving the puzzle the form was made from, not modified
+     */
+    public void put(final CanonicalForm form, final byte[] solution) {
+        final Key key = new Key(pack(form.getCells()));
+        final long[] value = pack(form.toCanonical(solution));
+        synchronized (this) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * drop all entries, the counters are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of entries dropped because the cache was full
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return hits divided by lookups, 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return estimated heap bytes held by the entries
+     */
+    public synchronized long getMemoryBytes() {
+        return entries.size() * ENTRY_BYTES;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return size() + "/" + capacity + " entries, " + hits + " hits, " + misses + " misses, "
+                + evictions + " evictions, ~" + getMemoryBytes() / 1024 + "KB";
+    }
+
+    private static long[] pack(final byte[] cells) {
+        final long[] retVal = new long[WORDS];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[i >>> 4] |= (long) cells[i] << ((i & 15) * 4);
+        }
+        return retVal;
+    }
+
+    private static byte[] unpack(final long[] words) {
+        final byte[] retVal = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            retVal[i] = (byte) ((words[i >>> 4] >>> ((i & 15) * 4)) & 0xF);
+        }
+        return retVal;
+    }
+
+    /**
+     * packed canonical puzzle with the hash computed once
+     */
+    private static final class Key {
+        private final long[] words;
+        private final int hash;
+
+        Key(final long[] words) {
+            this.words = words;
+            hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && Arrays.equals(words, ((Key) other).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
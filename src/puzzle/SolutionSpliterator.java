@@ -0,0 +1,134 @@
+package puzzle;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * the solutions of a board, searched one at a time by a SearchEngine as the stream asks for
+ * them. nothing is kept between solutions, so memory stays the same however many there are.
+ *
+ * trySplit hands half of the untried branches of the shallowest branch point to a new engine,
+ * which lets a parallel stream spread the subtrees over its workers. all the parts draw from
+ * one limit and one budget, and once either is used up a shared stop flag pauses every part
+ * at its next check. the order is the search order of a sequential stream, parallel parts are
+ * not ordered.
+ */
+final class SolutionSpliterator implements Spliterator<Board> {
+    /* nodes an engine searches before the node budget is checked */
+    private final static long SLICE = 16 * SolveLimits.CHECK_INTERVAL;
+
+    private final SearchEngine engine;
+    /* solutions the stream may still report, shared by all parts */
+    private final AtomicLong remaining;
+    private final AtomicBoolean stop;
+    private final SolveLimits.Budget budget;
+    /* nodes of the engine already counted against the budget */
+    private long counted = 0;
+    private long estimate;
+    private boolean opened = false;
+    /* solution found by propagation alone, before the first branch point */
+    private boolean pending = false;
+
+    /**
+     * @param start board to solve, not modified
+     * @param limit maximum number of solutions
+     * @param budget deadline, node budget and cancellation token of the whole stream
+     */
+    SolutionSpliterator(final BitBoard start, final long limit, final SolveLimits.Budget budget) {
+        this(new SearchEngine(), new AtomicLong(limit), new AtomicBoolean(limit <= 0), budget, Long.MAX_VALUE);
+        engine.load(start);
+        engine.setStop(stop);
+        engine.setBudget(budget);
+    }
+
+    private SolutionSpliterator(final SearchEngine engine, final AtomicLong remaining, final AtomicBoolean stop,
+                                final SolveLimits.Budget budget, final long estimate) {
+        this.engine = engine;
+        this.remaining = remaining;
+        this.stop = stop;
+        this.budget = budget;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Board> action) {
+        open();
+        if (pending && !stop.get()) {
+            pending = false;
+            return report(action);
+        }
+        while (!stop.get()) {
+            engine.setPauseAt(engine.getNodeCount() + SLICE);
+            final boolean solved = engine.next();
+            if (budget.addNodes(engine.getNodeCount() - counted) || budget.isOver()) {
+                stop.set(true);
+            }
+            counted = engine.getNodeCount();
+            if (solved) {
+                return report(action);
+            }
+            if (engine.isDone()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Board> trySplit() {
+        open();
+        if (stop.get()) {
+            return null;
+        }
+        final SearchEngine part = engine.split();
+        if (part == null) {
+            return null;
+        }
+        //the size is unknown, halving the guess lets the stream decide how far to split
+        estimate >>>= 1;
+        return new SolutionSpliterator(part, remaining, stop, budget, estimate);
+    }
+
+    /**
+     * propagate the board before the first search or split, only the whole board can be solved
+     * without branching
+     */
+    private void open() {
+        if (!opened) {
+            opened = true;
+            //the engine checks its budget every CHECK_INTERVAL nodes, a cancelled stream ends before any
+            if (budget.isOver()) {
+                stop.set(true);
+            }
+            pending = !engine.prepare() && engine.getSolution() != null;
+        }
+    }
+
+    /**
+     * pass the engine's solution on unless the limit is used up
+     * @return true if the action was called
+     */
+    private boolean report(final Consumer<? super Board> action) {
+        final long left = remaining.getAndDecrement();
+        if (left <= 1) {
+            stop.set(true);
+        }
+        if (left <= 0) {
+            return false;
+        }
+        action.accept(new Board(engine.getSolution()));
+        return true;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | DISTINCT | IMMUTABLE;
+    }
+}
@@ -0,0 +1,148 @@
+package puzzle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * bounds of a single solve: a timeout measured from the start of the call, a budget of search
+ * nodes and a cancellation token, each one optional. the solvers check the clock and the token
+ * every CHECK_INTERVAL nodes only, so a solve may overrun its deadline by that many nodes.
+ * instances are immutable and can be shared, e.g. one per request type.
+ */
+public final class SolveLimits {
+    /** no timeout, no node budget and no token, a search under it runs until it is finished */
+    public final static SolveLimits NONE = new SolveLimits(0, Long.MAX_VALUE, null);
+
+    /* how often the clock and the token are read, in nodes, must be a power of 2 */
+    final static int CHECK_INTERVAL = 1024;
+
+    private final long timeoutNanos;
+    private final long maxNodes;
+    private final CancellationToken token;
+
+    private SolveLimits(final long timeoutNanos, final long maxNodes, final CancellationToken token) {
+        this.timeoutNanos = timeoutNanos;
+        this.maxNodes = maxNodes;
+        this.token = token;
+    }
+
+    /**
+     * @param timeout time after which the solve stops with TIMED_OUT, 0 for none
+     * @param unit unit of the timeout
+     * @return these limits with the timeout replaced
+     */
+    public SolveLimits withTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative but was " + timeout);
+        }
+        return new SolveLimits(unit.toNanos(timeout), maxNodes, token);
+    }
+
+    /**
+     * @param nodes number of search nodes after which the solve stops with TIMED_OUT,
+     *              Long.MAX_VALUE for no budget
+     * @return these limits with the node budget replaced
+     */
+    public SolveLimits withMaxNodes(final long nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("node budget must be positive but was " + nodes);
+        }
+        return new SolveLimits(timeoutNanos, nodes, token);
+    }
+
+    /**
+     * @param cancellation token that stops the solve with CANCELLED, null for none
+     * @return these limits with the token replaced
+     */
+    public SolveLimits withToken(final CancellationToken cancellation) {
+        return new SolveLimits(timeoutNanos, maxNodes, cancellation);
+    }
+
+    /**
+     * @return timeout in nanoseconds, 0 for none
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    /**
+     * fix the deadline of a solve that starts now
+     * @return the budget to check while searching
+     */
+    Budget start() {
+        return new Budget(this, System.nanoTime());
+    }
+
+    @Override
+    public String toString() {
+        return "timeout " + (timeoutNanos == 0 ? "none" : TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms")
+                + ", nodes " + (maxNodes == Long.MAX_VALUE ? "unlimited" : String.valueOf(maxNodes))
+                + (token == null ? "" : ", cancellable");
+    }
+
+    /**
+     * the limits of one running solve. the node count is shared so that the tasks of a parallel
+     * search draw from one budget.
+     */
+    static final class Budget {
+        private final SolveLimits limits;
+        private final long deadline;
+        private final AtomicLong nodes = new AtomicLong();
+
+        private Budget(final SolveLimits limits, final long startNanos) {
+            this.limits = limits;
+            deadline = startNanos + limits.timeoutNanos;
+        }
+
+        long getMaxNodes() {
+            return limits.maxNodes;
+        }
+
+        /**
+         * @return true if the token was cancelled or the deadline has passed
+         */
+        boolean isOver() {
+            return isCancelled()
+                    || (limits.timeoutNanos != 0 && System.nanoTime() - deadline >= 0);
+        }
+
+        /**
+         * called by a search every CHECK_INTERVAL nodes, reports them to the token
+         * @return true if the token was cancelled or the deadline has passed
+         */
+        boolean checkpoint() {
+            if (limits.token != null) {
+                limits.token.addNodes(CHECK_INTERVAL);
+            }
+            return isOver();
+        }
+
+        boolean isCancelled() {
+            return limits.token != null && limits.token.isCancelled();
+        }
+
+        /**
+         * count nodes against the shared budget
+         * @param count nodes searched since the last call
+         * @return true if the budget is used up
+         */
+        boolean addNodes(final long count) {
+            return nodes.addAndGet(count) >= limits.maxNodes;
+        }
+
+        /**
+         * @return outcome of a search that stopped before it was finished
+         */
+        SolveResult.Status stoppedStatus() {
+            return isCancelled() ? SolveResult.Status.CANCELLED : SolveResult.Status.TIMED_OUT;
+        }
+    }
+}
@@ -1,94 +1,149 @@
-package puzzle;
-
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-/**
- * A class that would traverse through all a node and all its children
- * in search of solved node.
- */
-public class SolveNode {
-    private Node root;
-    private List<String> emptyCells;
-    private Character[][] solved = null;
-    private static final long TIMEOUT_IN_SEC = 10L;
-    private long startTime = System.currentTimeMillis();
-
-    /**
-     * public constructor
-     * @param node root node
-     * @param inEmptyCells a list of all empty cell on the puzzle
-     * @throws Exception exception thrown if parameters are invalid
-     */
-    public SolveNode (final Node node, List<String> inEmptyCells) throws Exception{
-        if (node == null || inEmptyCells == null) {
-            throw new Exception("node and emptyCell list cannot be null");
-        }
-        root = node;
-        emptyCells = inEmptyCells;
-    }
-
-    /**
-     * solves a sudoku puzzle return the value
-     * @return a solved sudoku puzzle
-     * @throws Exception if any
-     */
-    public Character[][] solve(final AtomicBoolean status) throws Exception{
-        startTime = System.currentTimeMillis();
-        solve(root, 0);
-        if (solved == null) {
-            status.set(false);
-            return root.getData();
-        }
-        status.set(true);
-        return solved;
-    }
-
-    /**
-     * solves a sudoku puzzle using DFS and return the solved puzzle
-     * @param node current node
-     * @param index this would be the nth empty cell on the board with the format of "row col"
-     * @throws Exception if any
-     */
-    private void solve(final Node node, final int index) throws Exception{
-        if (node.isSolved()) {
-            solved = node.getData();
-            return;
-        }
-
-        if(timeout()) {
-            /*
-            * if we have not found a solution by this time stop generating
-            * further nodes to avoid a crash. Still we might be able to solve
-            * the puzzle
-            */
-            return;
-        }
-
-        final String rowCol[] = emptyCells.get(index).split(Board.SEPARATOR);
-        final int row = Integer.parseInt(rowCol[0]);
-        final int col = Integer.parseInt(rowCol[1]);
-        node.generateChildren(row, col);
-        final List<Node> children = node.getChildren();
-        children.forEach(child -> {
-            if (child.isSolved()) {
-                solved = child.getData();
-                return;
-            }
-            final int nextIndex = index + 1;
-            if (nextIndex < emptyCells.size()) {
-                try {
-                    solve(child, nextIndex);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-        });
-    }
-
-    private boolean timeout() {
-        final long duration = (System.currentTimeMillis() - startTime) / 1000L;
-        return duration > TIMEOUT_IN_SEC;
-    }
-
-}
+package puzzle;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A class that would traverse through all a node and all its children
+ * in search of solved node. This is the debug mode of Solver, every child
+ * is a full copy of the board, use SearchEngine for real work.
+ */
+public class SolveNode {
+    private Node root;
+    private List<String> emptyCells;
+    private Character[][] solved = null;
+    private SolveLimits.Budget budget = null;
+    private long nodes = 0;
+    private long backtracks = 0;
+    private int maxDepth = 0;
+    private boolean stopped = false;
+
+    /**
+     * public constructor
+     * @param node root node
+     * @param inEmptyCells a list of all empty cell on the puzzle
+     * @throws Exception exception thrown if parameters are invalid
+     */
+    public SolveNode (final Node node, List<String> inEmptyCells) throws Exception{
+        if (node == null || inEmptyCells == null) {
+            throw new Exception("node and emptyCell list cannot be null");
+        }
+        root = node;
+        emptyCells = inEmptyCells;
+    }
+
+    /**
+     * solves a sudoku puzzle return the value, without any limits
+     * @param status set to true if the puzzle was solved
+     * @return a solved sudoku puzzle
+     * @throws Exception if any
+     */
+    public Character[][] solve(final AtomicBoolean status) throws Exception{
+        return solve(status, SolveLimits.NONE);
+    }
+
+    /**
+     * solves a sudoku puzzle return the value
+     * @param status set to true if the puzzle was solved
+     * @param limits deadline, node budget and cancellation token of the search
+     * @return a solved sudoku puzzle, the unchanged root board if it was not solved
+     * @throws Exception if any
+     */
+    public Character[][] solve(final AtomicBoolean status, final SolveLimits limits) throws Exception{
+        return solve(status, limits.start());
+    }
+
+    Character[][] solve(final AtomicBoolean status, final SolveLimits.Budget limits) throws Exception{
+        budget = limits;
+        solved = null;
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        stopped = false;
+        solve(root, 0);
+        if (solved == null) {
+            status.set(false);
+            return root.getData();
+        }
+        status.set(true);
+        return solved;
+    }
+
+    /**
+     * solves a sudoku puzzle using DFS and return the solved puzzle
+     * @param node current node
+     * @param index this would be the nth empty cell on the board with the format of "row col"
+     * @throws Exception if any
+     */
+    private void solve(final Node node, final int index) throws Exception{
+        if (node.isSolved()) {
+            solved = node.getData();
+            return;
+        }
+
+        if (stopped || isOverBudget()) {
+            return;
+        }
+        if (index >= maxDepth) {
+            maxDepth = index + 1;
+        }
+
+        final String rowCol[] = emptyCells.get(index).split(Board.SEPARATOR);
+        final int row = Integer.parseInt(rowCol[0]);
+        final int col = Integer.parseInt(rowCol[1]);
+        node.generateChildren(row, col);
+        final List<Node> children = node.getChildren();
+        if (children.isEmpty()) {
+            backtracks++;
+        }
+        for (final Node child : children) {
+            if (child.isSolved()) {
+                solved = child.getData();
+                return;
+            }
+            final int nextIndex = index + 1;
+            if (nextIndex < emptyCells.size()) {
+                solve(child, nextIndex);
+                if (solved != null) {
+                    //stop at the first solution
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the last solve was stopped by its limits before it finished
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return nodes expanded by the last solve
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * every node of the tree is a guess at one empty cell, the tree does not propagate
+     * @return counters of the last solve, the phase times are not measured
+     */
+    public SolveStats getStats() {
+        return new SolveStats(nodes, backtracks, nodes, maxDepth, 0, false, 0, 0, 0);
+    }
+
+    /**
+     * counts the node, the clock and the token are only read every CHECK_INTERVAL nodes
+     * @return true if the search has to stop
+     */
+    private boolean isOverBudget() {
+        if (++nodes >= budget.getMaxNodes()
+                || ((nodes & (SolveLimits.CHECK_INTERVAL - 1)) == 0 && budget.checkpoint())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+}
@@ -0,0 +1,88 @@
+package puzzle;
+
+/**
+ * outcome of solving a puzzle, alone or as part of a batch
+ */
+public class SolveResult {
+
+    /**
+     * what happened to the puzzle
+     */
+    public enum Status {
+        /** a solution was found */
+        SOLVED,
+        /** the search space was exhausted without a solution */
+        UNSOLVABLE,
+        /** the deadline passed or the node budget was used up before the search finished */
+        TIMED_OUT,
+        /** the cancellation token was cancelled before the search finished */
+        CANCELLED
+    }
+
+    private final long index;
+    private final Status status;
+    private final Board solution;
+    private final long nanos;
+    private final SolveStats stats;
+
+    /**
+     * @param index position of the puzzle in the input, starting at 0, 0 for a single solve
+     * @param status outcome
+     * @param solution solved board, null unless status is SOLVED
+     * @param nanos time spent solving in nanoseconds
+     * @param nodes search branches tried, 0 for a cache hit
+     */
+    public SolveResult(final long index, final Status status, final Board solution,
+                       final long nanos, final long nodes) {
+        this(index, status, solution, nanos, SolveStats.ofNodes(nodes));
+    }
+
+    /**
+     * @param index position of the puzzle in the input, starting at 0, 0 for a single solve
+     * @param status outcome
+     * @param solution solved board, null unless status is SOLVED
+     * @param nanos time spent solving in nanoseconds
+     * @param stats what the search did
+     */
+    public SolveResult(final long index, final Status status, final Board solution,
+                       final long nanos, final SolveStats stats) {
+        this.index = index;
+        this.status = status;
+        this.solution = solution;
+        this.nanos = nanos;
+        this.stats = stats;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    public Board getSolution() {
+        return solution;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getNodes() {
+        return stats.getNodes();
+    }
+
+    public SolveStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + index + " " + status + " in " + nanos + "ns, " + stats.getNodes() + " nodes";
+    }
+}
@@ -0,0 +1,129 @@
+package puzzle;
+
+/**
+ * what a single solve did. the counters are kept by the engines as plain fields, so they cost a
+ * few increments per node whether anybody reads them or not.
+ * <ul>
+ *     <li>nodes: branches tried by the search</li>
+ *     <li>backtracks: branches that ran into a contradiction</li>
+ *     <li>guesses: branch points, cells the search had to guess at</li>
+ *     <li>max depth: most branch points open at the same time</li>
+ *     <li>propagations: cells filled by naked and hidden singles</li>
+ * </ul>
+ * the phases are the cache lookup including canonicalization, the propagation before the first
+ * guess and the search. engines that do not propagate report their whole run as search.
+ */
+public final class SolveStats {
+    /** nothing done, e.g. a solve that failed before it started */
+    public final static SolveStats EMPTY = new SolveStats(0, 0, 0, 0, 0, false, 0, 0, 0);
+
+    private final long nodes;
+    private final long backtracks;
+    private final long guesses;
+    private final int maxDepth;
+    private final long propagations;
+    private final boolean cached;
+    private final long cacheNanos;
+    private final long propagateNanos;
+    private final long searchNanos;
+
+    SolveStats(final long nodes, final long backtracks, final long guesses, final int maxDepth,
+               final long propagations, final boolean cached, final long cacheNanos,
+               final long propagateNanos, final long searchNanos) {
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.guesses = guesses;
+        this.maxDepth = maxDepth;
+        this.propagations = propagations;
+        this.cached = cached;
+        this.cacheNanos = cacheNanos;
+        this.propagateNanos = propagateNanos;
+        this.searchNanos = searchNanos;
+    }
+
+    /**
+     * @param nodes search branches tried
+     * @return stats with nothing but a node count
+     */
+    static SolveStats ofNodes(final long nodes) {
+        return new SolveStats(nodes, 0, 0, 0, 0, false, 0, 0, 0);
+    }
+
+    /**
+     * @param cacheNanos time spent on the cache lookup
+     * @param hit true if the solution came from the cache
+     * @return copy with the cache phase set
+     */
+    SolveStats withCache(final long cacheNanos, final boolean hit) {
+        return new SolveStats(nodes, backtracks, guesses, maxDepth, propagations, hit, cacheNanos,
+                propagateNanos, searchNanos);
+    }
+
+    /**
+     * @param propagate time of the propagation phase
+     * @param search time of the search phase
+     * @return copy with the phase times replaced
+     */
+    SolveStats withTimes(final long propagate, final long search) {
+        return new SolveStats(nodes, backtracks, guesses, maxDepth, propagations, cached, cacheNanos,
+                propagate, search);
+    }
+
+    /**
+     * combine the stats of the parts of one parallel search
+     * @param other stats of another part
+     * @return counters added up, the deepest depth and the phase times of this part
+     */
+    SolveStats merge(final SolveStats other) {
+        return new SolveStats(nodes + other.nodes, backtracks + other.backtracks, guesses + other.guesses,
+                Math.max(maxDepth, other.maxDepth), propagations + other.propagations, cached, cacheNanos,
+                propagateNanos, searchNanos);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public long getGuesses() {
+        return guesses;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * @return true if the solution came from a SolutionCache without searching
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public long getCacheNanos() {
+        return cacheNanos;
+    }
+
+    public long getPropagateNanos() {
+        return propagateNanos;
+    }
+
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return nodes + " nodes, " + backtracks + " backtracks, " + guesses + " guesses, depth " + maxDepth
+                + ", " + propagations + " propagations" + (cached ? ", cached" : "")
+                + ", cache " + cacheNanos / 1000 + "us, propagate " + propagateNanos / 1000
+                + "us, search " + searchNanos / 1000 + "us";
+    }
+}
@@ -1,114 +1,382 @@
-package puzzle;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-import static puzzle.Board.LENGTH;
-
-public class Solver {
-
-    public Solver() {
-
-    }
-
-    /**
-     * solves a sudoku game by Depth First Search
-     *
-     * @param board board to solve
-     */
-    public void solve(Board board) {
-        try {
-            solveByDFS(board);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-    }
-
-    /**
-     * solves the puzzle using an instance of the sudoku.puzzle.SolveNode class
-     * @param board board to solve
-     * @throws Exception if any
-     */
-    private void solveByDFS(final Board board) throws Exception{
-        final Character[][] data = board.getTwoDBoard();
-        Board.print(data);
-        final List<String> emptyCell = board.getEmptyCells();
-        final Node root = new Node(data);
-        SolveNode solve = new SolveNode(root, emptyCell);
-        final AtomicBoolean status = new AtomicBoolean(false);
-        final Character[][] solved = solve.solve(status);
-        if (status.get()) {
-            System.out.println("_________________________________________");
-            Board.print(solved);
-            emptyCell.forEach(cell -> {
-                final String[] rowCol = cell.split(Board.SEPARATOR);
-                final int row = Integer.parseInt(rowCol[0]);
-                final int col = Integer.parseInt(rowCol[1]);
-                board.insert(solved[row][col], row, col);
-            });
-        }
-    }
-
-
-    /**
-     * solve by eliminating values using sudoku rule
-     * this method not be able to solve a puzzle all the time
-     * @param board board to solve
-     */
-    @SuppressWarnings("unused")
-    public void solveByElimination(Board board) {
-        final Character[][] brd = board.getTwoDBoard();
-        final List<String> emptyCells = board.getEmptyCells();
-        final HashMap<String, Set<Character>> cellValues = new HashMap<String, Set<Character>>();
-        emptyCells.forEach(cell -> cellValues.put(cell, Board.getChar1To9()));
-
-
-        int count = LENGTH * LENGTH * LENGTH;
-
-        while (!board.isSolved()) {
-            for(Map.Entry<String, Set<Character>> entry : cellValues.entrySet()) {
-                final String[] element = entry.getKey().split(" ");
-                final int row = Integer.parseInt(element[0]);
-                final int col = Integer.parseInt(element[1]);
-
-                final Character currentValue = board.getCellValue(row, col);
-                if (currentValue.charValue() != ' ') {
-                    continue;
-                }
-                final Set<Character> values = entry.getValue();
-
-                if (values.size() > 1) {
-                    for (int i = 0; i < LENGTH; i++) {
-                        values.remove(brd[row][i]);
-                    }
-
-                    for (int i = 0; i < LENGTH; i++) {
-                       values.remove(brd[i][col]);
-                    }
-
-                    final int bRow = Board.getBlockCoordinate(row);
-                    final int bCol = Board.getBlockCoordinate(col);
-                    for (int i = bRow; i < (bRow + 3); i++) {
-                        for (int j = bCol; j < (bCol + 3); j++) {
-                            values.remove(brd[i][j]);
-                        }
-                    }
-                }
-                if (values.size() == 1) {
-                    final Character sol = values.iterator().next();
-                    board.insert(sol, row, col);
-                    brd[row][col] = sol;
-                    values.clear();
-                }
-            }
-            count--;
-            if (count < 0) {
-                System.out.println("elimination algorithm returns unsolved");
-                return;
-            }
-        }
-    }
-}
+package puzzle;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * entry point for solving a Board. a Solver only holds the selected algorithm, the search
+ * state lives in an engine owned by the calling thread, so one instance can be shared by
+ * any number of threads as long as each thread solves a different Board. an optional
+ * SolutionCache answers repeated and symmetric puzzles without searching.
+ */
+public class Solver {
+
+    /**
+     * available solver backends
+     */
+    public enum Algorithm {
+        /** constraint propagation with most constrained cell first search */
+        PROPAGATION,
+        /** exact cover solved by dancing links */
+        DANCING_LINKS,
+        /** propagation search split over the cores of a fork join pool, for hard puzzles */
+        PARALLEL,
+        /**
+         * debug mode, depth first search over a tree of Node objects. every branch
+         * allocates a copy of the board so it is only meant for inspecting the search.
+         */
+        DFS
+    }
+
+    private final Algorithm algorithm;
+    private final SolutionCache cache;
+    private final MetricsSink metrics;
+
+    public Solver() {
+        this(Algorithm.PROPAGATION);
+    }
+
+    /**
+     * @param algorithm backend used by solve
+     */
+    public Solver(final Algorithm algorithm) {
+        this(algorithm, null);
+    }
+
+    /**
+     * @param algorithm backend used by solve on a cache miss
+     * @param cache solutions shared between solves, may be null
+     */
+    public Solver(final Algorithm algorithm, final SolutionCache cache) {
+        this(algorithm, cache, MetricsSink.NOOP);
+    }
+
+    /**
+     * @param algorithm backend used by solve on a cache miss
+     * @param cache solutions shared between solves, may be null
+     * @param metrics receives the result of every solve(Board, SolveLimits), MetricsSink.NOOP for none
+     */
+    public Solver(final Algorithm algorithm, final SolutionCache cache, final MetricsSink metrics) {
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the solution cache, null if solve does not use one
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * solves a sudoku game with the selected algorithm and no limits, the board is only
+     * changed if a solution was found
+     *
+     * @param board board to solve
+     */
+    public void solve(Board board) {
+        solve(board, SolveLimits.NONE);
+    }
+
+    /**
+     * solves a sudoku game with the selected algorithm within limits, the board is only
+     * changed if a solution was found. with a cache the solution of an equivalent puzzle
+     * is reused, and a new solution is stored
+     *
+     * SolveLimits.NONE puts no bound on the search for any algorithm, DFS included, which can
+     * take very long on an open board. pass a timeout or a token to stop it.
+     *
+     * @param board board to solve
+     * @param limits deadline, node budget and cancellation token of this call
+     * @return outcome with the time spent and the SolveStats, the solution is the board itself
+     * @throws IllegalStateException if the search itself failed
+     */
+    public SolveResult solve(final Board board, final SolveLimits limits) {
+        final long start = System.nanoTime();
+        final SolveLimits.Budget budget = limits.start();
+        final CanonicalForm form = cache == null ? null : CanonicalForm.of(board.getBitBoard());
+        final byte[] cached = form == null ? null : cache.get(form);
+        final long cacheNanos = cache == null ? 0 : System.nanoTime() - start;
+        if (cached != null) {
+            final BitBoard grid = board.getBitBoard();
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                if (grid.get(i) == 0) {
+                    grid.set(i, cached[i]);
+                }
+            }
+            final SolveResult retVal = result(board, SolveResult.Status.SOLVED, start,
+                    SolveStats.EMPTY.withCache(cacheNanos, true));
+            metrics.record(retVal);
+            return retVal;
+        }
+        SolveResult retVal;
+        try {
+            switch (algorithm) {
+                case DANCING_LINKS:
+                    retVal = solveByDancingLinks(board, budget, start);
+                    break;
+                case PARALLEL:
+                    retVal = solveInParallel(board, budget, start);
+                    break;
+                case DFS:
+                    retVal = solveByDFS(board, budget, start);
+                    break;
+                default:
+                    retVal = solveByPropagation(board, budget, start);
+            }
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            //only the DFS tree declares checked exceptions, a failure is not an answer about the puzzle
+            throw new IllegalStateException("solve failed", ex);
+        }
+        if (cache != null) {
+            retVal = result(board, retVal.getStatus(), start, retVal.getStats().withCache(cacheNanos, false));
+            if (form != null && retVal.isSolved()) {
+                cache.put(form, board.getBitBoard().cells);
+            }
+        }
+        metrics.record(retVal);
+        return retVal;
+    }
+
+    /**
+     * solves a board of any supported size. 9x9 boards go through the specialized SearchEngine,
+     * the other sizes through a GridEngine, the selected algorithm is not used.
+     * without limits the search is not bounded, see solve(Grid, SolveLimits)
+     * @param grid board to solve, only changed if a solution was found
+     * @return true if a solution was found
+     */
+    public boolean solve(final Grid grid) {
+        return solve(grid, SolveLimits.NONE) == SolveResult.Status.SOLVED;
+    }
+
+    /**
+     * solves a board of any supported size within limits, see solve(Grid)
+     * @param grid board to solve, only changed if a solution was found
+     * @param limits deadline, node budget and cancellation token of this call
+     * @return SOLVED, UNSOLVABLE or the reason the search stopped early
+     */
+    public SolveResult.Status solve(final Grid grid, final SolveLimits limits) {
+        if (grid.getGeometry().getSize() != Board.LENGTH) {
+            return new GridEngine(grid.getGeometry()).solve(grid, limits);
+        }
+        final BitBoard start = new BitBoard();
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            if (grid.cells[i] != 0) {
+                start.place(i, grid.cells[i]);
+            }
+        }
+        final SearchEngine engine = SearchEngine.local();
+        final SolveResult.Status status = engine.solve(start, limits.start());
+        if (status != SolveResult.Status.SOLVED) {
+            return status;
+        }
+        final BitBoard solution = engine.getSolution();
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            if (grid.cells[i] == 0) {
+                grid.place(i, solution.get(i));
+            }
+        }
+        return status;
+    }
+
+    /**
+     * solves a 9x9 puzzle under variant rules. the classic rule set goes through the
+     * SearchEngine, variants through a VariantEngine, the selected algorithm is not used.
+     * @param cells 81 digits, 0 for empty cells, filled in only if a solution was found
+     * @param rules rules of the puzzle
+     * @return true if a solution was found
+     */
+    public boolean solve(final byte[] cells, final RuleSet rules) {
+        if (!rules.isClassic()) {
+            return new VariantEngine(rules).solve(cells);
+        }
+        final Board board = new Board();
+        if (!board.load(cells)) {
+            return false;
+        }
+        final SearchEngine engine = SearchEngine.local();
+        if (!engine.solve(board.getBitBoard())) {
+            return false;
+        }
+        System.arraycopy(engine.getSolution().cells, 0, cells, 0, BitBoard.CELLS);
+        return true;
+    }
+
+    /**
+     * count the solutions of a board and stop as soon as limit solutions are found.
+     * uses the calling thread's SearchEngine and allocates nothing.
+     * @param board board to check, not modified
+     * @param limit maximum number of solutions to look for, 2 is enough for a uniqueness check
+     * @return number of solutions, at most limit
+     */
+    public int countSolutions(final Board board, final int limit) {
+        return SearchEngine.local().countSolutions(board.getBitBoard(), limit);
+    }
+
+    /**
+     * @param board board to check, not modified
+     * @return true if the board has exactly one solution
+     */
+    public boolean hasUniqueSolution(final Board board) {
+        return countSolutions(board, 2) == 1;
+    }
+
+    /**
+     * enumerate the solutions of a board with dancing links
+     * @param board board to solve, not modified
+     * @param limit maximum number of solutions
+     * @param consumer called with every solution, may be null
+     * @return number of solutions found, at most limit
+     */
+    public int forEachSolution(final Board board, final int limit, final Consumer<Board> consumer) {
+        final DancingLinks dlx = new DancingLinks(board.getBitBoard());
+        return dlx.solve(limit, consumer == null ? null : solution -> consumer.accept(new Board(solution)));
+    }
+
+    /**
+     * all solutions of a board as a lazy stream, see solutions(Board, long, SolveLimits)
+     * @param board board to solve, not modified
+     * @return stream of solved copies of the board
+     */
+    public Stream<Board> solutions(final Board board) {
+        return solutions(board, Long.MAX_VALUE, SolveLimits.NONE);
+    }
+
+    /**
+     * the solutions of a board as a lazy stream. they are searched one at a time as the stream
+     * asks for them, so memory does not grow with their number and short circuiting operations
+     * such as findAny or anyMatch stop the search. a parallel stream splits the search tree
+     * over its workers. the order of a sequential stream is the search order, a parallel one
+     * is not ordered.
+     * @param board board to solve, copied when the stream is created
+     * @param limit maximum number of solutions, cheaper than Stream.limit on a parallel stream
+     * @param limits deadline, node budget and cancellation token, the stream ends early once
+     *               they are exceeded and the timeout starts now
+     * @return stream of solved copies of the board
+     */
+    public Stream<Board> solutions(final Board board, final long limit, final SolveLimits limits) {
+        return StreamSupport.stream(new SolutionSpliterator(board.getBitBoard(), limit, limits.start()), false);
+    }
+
+    /**
+     * solves the puzzle using an instance of the SearchEngine class,
+     * the board is only changed if a solution was found
+     * @param board board to solve
+     * @param budget limits of the call
+     * @param start System.nanoTime() when the call started
+     * @return outcome
+     */
+    private SolveResult solveByPropagation(final Board board, final SolveLimits.Budget budget, final long start) {
+        final SearchEngine engine = SearchEngine.local();
+        final SolveResult.Status status = engine.solve(board.getBitBoard(), budget);
+        if (status == SolveResult.Status.SOLVED) {
+            board.getBitBoard().copyFrom(engine.getSolution());
+        }
+        return result(board, status, start, engine.getStats());
+    }
+
+    /**
+     * solves the puzzle using an instance of the ParallelSolver class
+     * @param board board to solve
+     * @param budget limits of the call
+     * @param start System.nanoTime() when the call started
+     * @return outcome
+     */
+    private SolveResult solveInParallel(final Board board, final SolveLimits.Budget budget, final long start) {
+        final SolveResult parallel = new ParallelSolver().solve(board.getBitBoard(), budget);
+        if (parallel.isSolved()) {
+            board.getBitBoard().copyFrom(parallel.getSolution().getBitBoard());
+        }
+        return result(board, parallel.getStatus(), start, parallel.getStats());
+    }
+
+    /**
+     * solves the puzzle using an instance of the DancingLinks class
+     * @param board board to solve
+     * @param budget limits of the call
+     * @param start System.nanoTime() when the call started
+     * @return outcome
+     */
+    private SolveResult solveByDancingLinks(final Board board, final SolveLimits.Budget budget, final long start) {
+        final long begin = System.nanoTime();
+        final DancingLinks dlx = new DancingLinks(board.getBitBoard());
+        final int count = dlx.solve(1, solution -> board.getBitBoard().copyFrom(solution), budget);
+        final SolveResult.Status status;
+        if (count > 0) {
+            status = SolveResult.Status.SOLVED;
+        } else {
+            status = dlx.isStopped() ? budget.stoppedStatus() : SolveResult.Status.UNSOLVABLE;
+        }
+        return result(board, status, start, dlx.getStats().withTimes(0, System.nanoTime() - begin));
+    }
+
+    /**
+     * solves the puzzle using an instance of the sudoku.puzzle.SolveNode class
+     * @param board board to solve
+     * @param budget limits of the call
+     * @param start System.nanoTime() when the call started
+     * @return outcome
+     * @throws Exception if any
+     */
+    private SolveResult solveByDFS(final Board board, final SolveLimits.Budget budget, final long start) throws Exception{
+        final long begin = System.nanoTime();
+        final BitBoard grid = board.getBitBoard();
+        final List<String> emptyCell = board.getEmptyCells();
+        final Node root = new Node(grid);
+        SolveNode solve = new SolveNode(root, emptyCell);
+        final AtomicBoolean status = new AtomicBoolean(false);
+        final Character[][] solved = solve.solve(status, budget);
+        if (status.get()) {
+            emptyCell.forEach(cell -> {
+                final String[] rowCol = cell.split(Board.SEPARATOR);
+                final int row = Integer.parseInt(rowCol[0]);
+                final int col = Integer.parseInt(rowCol[1]);
+                board.insert(solved[row][col], row, col);
+            });
+        }
+        final SolveResult.Status outcome;
+        if (status.get()) {
+            outcome = SolveResult.Status.SOLVED;
+        } else {
+            outcome = solve.isStopped() ? budget.stoppedStatus() : SolveResult.Status.UNSOLVABLE;
+        }
+        return result(board, outcome, start, solve.getStats().withTimes(0, System.nanoTime() - begin));
+    }
+
+    /**
+     * @param board the solved board
+     * @param status outcome of the call
+     * @param start System.nanoTime() when the call started
+     * @param stats what the search did
+     * @return result of a single solve
+     */
+    private static SolveResult result(final Board board, final SolveResult.Status status,
+                                      final long start, final SolveStats stats) {
+        return new SolveResult(0, status, status == SolveResult.Status.SOLVED ? board : null,
+                System.nanoTime() - start, stats);
+    }
+
+    /**
+     * solve by eliminating values using sudoku rule, this is the propagation
+     * phase of the SearchEngine (naked and hidden singles) without any guessing.
+     * this method not be able to solve a puzzle all the time, check board.isSolved() afterwards
+     * @param board board to solve
+     * @return false if the board has a contradiction, it is left unchanged then
+     */
+    @SuppressWarnings("unused")
+    public boolean solveByElimination(Board board) {
+        final SearchEngine engine = new SearchEngine();
+        engine.load(board.getBitBoard());
+        if (!engine.propagate()) {
+            return false;
+        }
+        board.getBitBoard().copyFrom(engine.getBoard());
+        return true;
+    }
+}
@@ -0,0 +1,202 @@
+package puzzle;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+/**
+ * MetricsSink that aggregates solves into counters and histograms of the solve time and of the
+ * nodes per solve. recording is lock free and allocates nothing, so one instance can take the
+ * results of every Solver of a process. register() publishes it over JMX.
+ */
+public class SolverMetrics implements MetricsSink, SolverMetricsMXBean {
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder[] outcomes = new LongAdder[SolveResult.Status.values().length];
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder propagations = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final Histogram nanos = new Histogram();
+    private final Histogram nodeCounts = new Histogram();
+
+    public SolverMetrics() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void record(final SolveResult result) {
+        final SolveStats stats = result.getStats();
+        solves.increment();
+        outcomes[result.getStatus().ordinal()].increment();
+        if (stats.isCached()) {
+            cacheHits.increment();
+        }
+        nodes.add(stats.getNodes());
+        backtracks.add(stats.getBacktracks());
+        guesses.add(stats.getGuesses());
+        propagations.add(stats.getPropagations());
+        maxDepth.accumulate(stats.getMaxDepth());
+        nanos.record(result.getNanos());
+        nodeCounts.record(stats.getNodes());
+    }
+
+    /**
+     * publish the metrics on the platform MBean server as puzzle:type=SolverMetrics,name=name
+     * @param name distinguishes several instances
+     * @throws Exception if the name is taken or invalid
+     */
+    public void register(final String name) throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName(name));
+    }
+
+    /**
+     * @param name name given to register
+     * @throws Exception if the metrics are not registered under that name
+     */
+    public void unregister(final String name) throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+    }
+
+    /**
+     * @return histogram of the solve times in nanoseconds
+     */
+    public Histogram getTimes() {
+        return nanos;
+    }
+
+    /**
+     * @return histogram of the nodes per solve
+     */
+    public Histogram getNodeCounts() {
+        return nodeCounts;
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolvedCount() {
+        return outcomes[SolveResult.Status.SOLVED.ordinal()].sum();
+    }
+
+    @Override
+    public long getUnsolvableCount() {
+        return outcomes[SolveResult.Status.UNSOLVABLE.ordinal()].sum();
+    }
+
+    @Override
+    public long getTimedOutCount() {
+        return outcomes[SolveResult.Status.TIMED_OUT.ordinal()].sum();
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return outcomes[SolveResult.Status.CANCELLED.ordinal()].sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getBacktrackCount() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getGuessCount() {
+        return guesses.sum();
+    }
+
+    @Override
+    public long getPropagationCount() {
+        return propagations.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getTimeP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(nanos.getPercentile(50));
+    }
+
+    @Override
+    public long getTimeP90Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(nanos.getPercentile(90));
+    }
+
+    @Override
+    public long getTimeP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(nanos.getPercentile(99));
+    }
+
+    @Override
+    public long getTimeMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(nanos.getMax());
+    }
+
+    @Override
+    public long getNodesP50() {
+        return nodeCounts.getPercentile(50);
+    }
+
+    @Override
+    public long getNodesP90() {
+        return nodeCounts.getPercentile(90);
+    }
+
+    @Override
+    public long getNodesP99() {
+        return nodeCounts.getPercentile(99);
+    }
+
+    /**
+     * start counting from zero, solves recorded at the same time may be partly lost
+     */
+    @Override
+    public void reset() {
+        solves.reset();
+        for (final LongAdder outcome : outcomes) {
+            outcome.reset();
+        }
+        cacheHits.reset();
+        nodes.reset();
+        backtracks.reset();
+        guesses.reset();
+        propagations.reset();
+        maxDepth.reset();
+        nanos.reset();
+        nodeCounts.reset();
+    }
+
+    @Override
+    public String toString() {
+        return getSolveCount() + " solves (" + getSolvedCount() + " solved, " + getUnsolvableCount()
+                + " unsolvable, " + getTimedOutCount() + " timed out, " + getCancelledCount() + " cancelled, "
+                + getCacheHitCount() + " cached), " + getNodeCount() + " nodes, " + getBacktrackCount()
+                + " backtracks, max depth " + getMaxDepth() + ", p50 " + getTimeP50Micros() + "us, p90 "
+                + getTimeP90Micros() + "us, p99 " + getTimeP99Micros() + "us";
+    }
+
+    private static ObjectName objectName(final String name) throws Exception {
+        return new ObjectName("puzzle:type=SolverMetrics,name=" + ObjectName.quote(name));
+    }
+}
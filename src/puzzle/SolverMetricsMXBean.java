@@ -0,0 +1,44 @@
+package puzzle;
+
+/**
+ * JMX view of SolverMetrics, registered with SolverMetrics.register
+ */
+public interface SolverMetricsMXBean {
+    long getSolveCount();
+
+    long getSolvedCount();
+
+    long getUnsolvableCount();
+
+    long getTimedOutCount();
+
+    long getCancelledCount();
+
+    long getCacheHitCount();
+
+    long getNodeCount();
+
+    long getBacktrackCount();
+
+    long getGuessCount();
+
+    long getPropagationCount();
+
+    int getMaxDepth();
+
+    long getTimeP50Micros();
+
+    long getTimeP90Micros();
+
+    long getTimeP99Micros();
+
+    long getTimeMaxMicros();
+
+    long getNodesP50();
+
+    long getNodesP90();
+
+    long getNodesP99();
+
+    void reset();
+}
@@ -0,0 +1,472 @@
+package puzzle;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * embedded http service on the jdk's built in server, meant to be reached on localhost.
+ * <ul>
+ *     <li>POST /solve, optional timeout (ms) and maxNodes per puzzle</li>
+ *     <li>POST /validate, valid, invalid (broken rules), unsolvable or multiple</li>
+ *     <li>POST /count, solutions up to limit (default 2), optional timeout (ms)</li>
+ *     <li>GET or POST /generate, optional count, difficulty and seed</li>
+ * </ul>
+ * options are query parameters. the body is either text in any PuzzleReader layout or json,
+ * {"puzzle": "..."} for a single puzzle and {"puzzles": [...]} or [...] for a batch. json
+ * is answered with json when the request is json or accepts it, everything else with one
+ * line per puzzle in the format of the CommandLine.
+ *
+ * requests are read and answered on virtual threads where the jvm has them and on a cached
+ * pool otherwise. the puzzles themselves are worked on by a BatchSolver with one platform
+ * thread per core, so every worker keeps its SearchEngine and a virtual thread never pins a
+ * core. at most capacity requests are admitted at a time, anything beyond that is shed with
+ * 503 before its body is read.
+ */
+public class SolverServer implements AutoCloseable {
+    /* most puzzles in one request and largest body */
+    public final static int MAX_PUZZLES = 100_000;
+    public final static int MAX_BODY = 16 << 20;
+    private final static int MAX_GENERATE = 1_000;
+    private final static int MAX_COUNT = 1_000_000;
+
+    private final static ThreadLocal<Generator> GENERATORS = ThreadLocal.withInitial(Generator::new);
+
+    /**
+     * work on one puzzle, runs on a worker thread
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        /**
+         * @param request parsed request
+         * @param index position of the item in the request
+         * @param cells puzzle, null for generate
+         * @return json object or text line of the item
+         */
+        String apply(Request request, long index, byte[] cells);
+    }
+
+    /**
+     * ends a request with an http error status
+     */
+    private static final class Failure extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        Failure(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final BatchSolver workers;
+    private final Semaphore admission;
+    private final int capacity;
+    private final SolveLimits limits;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param address address to listen on, port 0 picks a free port
+     * @param threads worker threads for the puzzles
+     * @param capacity most requests admitted at the same time, the others get 503
+     * @param limits default bounds of each solve and count, a request may replace them
+     * @throws IOException if the address cannot be bound
+     */
+    public SolverServer(final InetSocketAddress address, final int threads, final int capacity,
+                        final SolveLimits limits) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive but was " + capacity);
+        }
+        this.workers = new BatchSolver(threads);
+        this.capacity = capacity;
+        this.admission = new Semaphore(capacity);
+        this.limits = limits;
+        this.requests = requestExecutor();
+        server = HttpServer.create(address, 0);
+        server.setExecutor(requests);
+        server.createContext("/solve", exchange -> handle(exchange, true, this::solve));
+        server.createContext("/validate", exchange -> handle(exchange, true, this::validate));
+        server.createContext("/count", exchange -> handle(exchange, true, this::count));
+        server.createContext("/generate", exchange -> handle(exchange, false, this::generate));
+    }
+
+    /**
+     * @return a virtual thread per task executor if the jvm has one, else a cached pool
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "sudoku-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return requests admitted and not answered yet
+     */
+    public int getInFlight() {
+        return capacity - admission.availablePermits();
+    }
+
+    /**
+     * @return requests shed with 503 since the start
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * stops listening and drops requests still in flight
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdownNow();
+        workers.close();
+    }
+
+    private void handle(final HttpExchange exchange, final boolean needsPuzzles,
+                        final Endpoint endpoint) throws IOException {
+        final boolean json = accepts(exchange, "json");
+        try {
+            if (!admission.tryAcquire()) {
+                rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                throw new Failure(503, "server busy");
+            }
+            final String body;
+            try {
+                final String method = exchange.getRequestMethod();
+                if (!method.equals("POST") && (needsPuzzles || !method.equals("GET"))) {
+                    exchange.getResponseHeaders().set("Allow", needsPuzzles ? "POST" : "GET, POST");
+                    throw new Failure(405, "method " + method + " not allowed");
+                }
+                final Request request = new Request(exchange, json, needsPuzzles);
+                final List<String> results = new ArrayList<>(request.size());
+                workers.map(request.iterator(), true,
+                        (index, cells) -> endpoint.apply(request, index, cells), results::add);
+                body = request.render(results);
+            } finally {
+                //released before the response, a client may send its next request as soon as it has one
+                admission.release();
+            }
+            send(exchange, 200, json, body);
+        } catch (Failure ex) {
+            send(exchange, ex.status, json, error(json, ex.getMessage()));
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, json, error(json, ex.getMessage()));
+        } catch (Exception ex) {
+            send(exchange, 500, json, error(json, String.valueOf(ex.getCause() == null ? ex : ex.getCause())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String solve(final Request request, final long index, final byte[] cells) {
+        final Board board = new Board();
+        if (!board.load(cells)) {
+            return request.json ? puzzle(cells).append(",\"status\":\"invalid\"}").toString()
+                    : CommandLine.toLine(cells) + " invalid";
+        }
+        final SearchEngine engine = SearchEngine.local();
+        final long start = System.nanoTime();
+        final SolveResult.Status status = engine.solve(board.getBitBoard(), request.limits.start());
+        final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        final String name = status.name().toLowerCase(Locale.ROOT);
+        final boolean solved = status == SolveResult.Status.SOLVED;
+        if (!request.json) {
+            return solved ? CommandLine.toLine(engine.getSolution().toBytes()) : CommandLine.toLine(cells) + " " + name;
+        }
+        final StringBuilder builder = puzzle(cells).append(",\"status\":\"").append(name).append('"');
+        if (solved) {
+            Json.quote(builder.append(",\"solution\":"), CommandLine.toLine(engine.getSolution().toBytes()));
+        }
+        return builder.append(",\"micros\":").append(micros)
+                .append(",\"nodes\":").append(engine.getNodeCount()).append('}').toString();
+    }
+
+    private String validate(final Request request, final long index, final byte[] cells) {
+        final Board board = new Board();
+        final String verdict;
+        if (!board.load(cells)) {
+            verdict = "invalid";
+        } else {
+            final int solutions = SearchEngine.local().countSolutions(board.getBitBoard(), 2);
+            verdict = solutions == 0 ? "unsolvable" : solutions == 1 ? "valid" : "multiple";
+        }
+        return request.json ? puzzle(cells).append(",\"verdict\":\"").append(verdict).append("\"}").toString()
+                : CommandLine.toLine(cells) + " " + verdict;
+    }
+
+    private String count(final Request request, final long index, final byte[] cells) {
+        final Board board = new Board();
+        int count = 0;
+        final String status;
+        if (!board.load(cells)) {
+            status = "invalid";
+        } else {
+            final SearchEngine engine = SearchEngine.local();
+            final SolveLimits.Budget budget = request.limits.start();
+            engine.load(board.getBitBoard());
+            engine.setBudget(budget);
+            try {
+                while (count < request.limit && engine.next()) {
+                    count++;
+                }
+            } finally {
+                engine.setBudget(null);
+            }
+            status = count == request.limit ? "limit"
+                    : engine.isDone() ? "complete" : budget.stoppedStatus().name().toLowerCase(Locale.ROOT);
+        }
+        return request.json
+                ? puzzle(cells).append(",\"solutions\":").append(count).append(",\"status\":\"").append(status).append("\"}").toString()
+                : CommandLine.toLine(cells) + " " + count + " " + status;
+    }
+
+    private String generate(final Request request, final long index, final byte[] ignored) {
+        final Generator generator = request.seed == null ? GENERATORS.get()
+                : new Generator(new Random(request.seed + index));
+        final byte[] cells = generator.generate(request.difficulty).getBitBoard().toBytes();
+        return request.json ? puzzle(cells).append('}').toString() : CommandLine.toLine(cells);
+    }
+
+    /**
+     * @param cells puzzle
+     * @return an open json object with the puzzle
+     */
+    private static StringBuilder puzzle(final byte[] cells) {
+        return Json.quote(new StringBuilder("{\"puzzle\":"), CommandLine.toLine(cells));
+    }
+
+    private static String error(final boolean json, final String message) {
+        return json ? Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString() : message;
+    }
+
+    private static boolean accepts(final HttpExchange exchange, final String type) {
+        for (final String header : new String[]{"Content-Type", "Accept"}) {
+            final String value = exchange.getRequestHeaders().getFirst(header);
+            if (value != null && value.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final boolean json,
+                             final String body) throws IOException {
+        final byte[] bytes = (body.isEmpty() || body.endsWith("\n") ? body : body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                (json ? "application/json" : "text/plain") + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * query parameters and payload of one request
+     */
+    private final class Request {
+        final boolean json;
+        final SolveLimits limits;
+        final int limit;
+        final Generator.Difficulty difficulty;
+        final Long seed;
+        /* a single puzzle is answered with a single result */
+        private final boolean single;
+        private final List<byte[]> puzzles = new ArrayList<>();
+        private final long count;
+
+        Request(final HttpExchange exchange, final boolean json, final boolean needsPuzzles) throws Exception {
+            this.json = json;
+            final Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            SolveLimits requested = SolverServer.this.limits;
+            if (query.containsKey("timeout")) {
+                requested = requested.withTimeout(number(query, "timeout", 1, Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+            }
+            if (query.containsKey("maxNodes")) {
+                requested = requested.withMaxNodes(number(query, "maxNodes", 1, Long.MAX_VALUE));
+            }
+            limits = requested;
+            limit = query.containsKey("limit") ? (int) number(query, "limit", 1, MAX_COUNT) : 2;
+            try {
+                difficulty = Generator.Difficulty.valueOf(
+                        query.getOrDefault("difficulty", "MEDIUM").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("unknown difficulty " + query.get("difficulty"));
+            }
+            seed = query.containsKey("seed") ? number(query, "seed", Long.MIN_VALUE, Long.MAX_VALUE) : null;
+            if (needsPuzzles) {
+                single = read(exchange);
+                count = puzzles.size();
+            } else {
+                single = !query.containsKey("count");
+                count = single ? 1 : number(query, "count", 1, MAX_GENERATE);
+            }
+        }
+
+        int size() {
+            return (int) count;
+        }
+
+        /**
+         * @return the puzzles, or count nulls for generate
+         */
+        Iterator<byte[]> iterator() {
+            if (!puzzles.isEmpty()) {
+                return puzzles.iterator();
+            }
+            return LongStream.range(0, count).mapToObj(i -> (byte[]) null).iterator();
+        }
+
+        /**
+         * @param results one json object or text line per item
+         * @return response body
+         */
+        String render(final List<String> results) {
+            if (!json) {
+                return String.join("\n", results);
+            }
+            if (single) {
+                return results.get(0);
+            }
+            return "{\"results\":[" + String.join(",", results) + "]}";
+        }
+
+        /**
+         * @return true if the body holds a single json puzzle
+         */
+        private boolean read(final HttpExchange exchange) throws Exception {
+            final byte[] body = body(exchange.getRequestBody());
+            final String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (type == null || !type.contains("json")) {
+                final byte[] cells = new byte[CELLS];
+                try (PuzzleReader reader = new PuzzleReader(new ByteArrayInputStream(body))) {
+                    while (reader.read(cells)) {
+                        add(cells.clone());
+                    }
+                }
+                if (puzzles.isEmpty()) {
+                    throw new IllegalArgumentException("no puzzle in the request");
+                }
+                return false;
+            }
+            final Object document = Json.parse(new String(body, StandardCharsets.UTF_8));
+            final Object single = document instanceof Map ? ((Map<?, ?>) document).get("puzzle") : null;
+            if (single != null) {
+                add(parse(single));
+                return true;
+            }
+            final Object batch = document instanceof Map ? ((Map<?, ?>) document).get("puzzles") : document;
+            if (!(batch instanceof List) || ((List<?>) batch).isEmpty()) {
+                throw new IllegalArgumentException("expected {\"puzzle\": ...}, {\"puzzles\": [...]} or [...]");
+            }
+            for (final Object item : (List<?>) batch) {
+                add(parse(item));
+            }
+            return false;
+        }
+
+        private void add(final byte[] cells) throws Failure {
+            if (puzzles.size() == MAX_PUZZLES) {
+                throw new Failure(413, "more than " + MAX_PUZZLES + " puzzles");
+            }
+            puzzles.add(cells);
+        }
+
+        private byte[] parse(final Object item) throws IOException {
+            final byte[] retVal = new byte[CELLS];
+            if (item instanceof String) {
+                try (PuzzleReader reader = new PuzzleReader(
+                        new ByteArrayInputStream(((String) item).getBytes(StandardCharsets.UTF_8)))) {
+                    if (reader.read(retVal)) {
+                        return retVal;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("not a puzzle: " + item);
+        }
+    }
+
+    private static byte[] body(final InputStream in) throws IOException, Failure {
+        final ByteArrayOutputStream retVal = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (retVal.size() + read > MAX_BODY) {
+                throw new Failure(413, "body larger than " + MAX_BODY + " bytes");
+            }
+            retVal.write(buffer, 0, read);
+        }
+        return retVal.toByteArray();
+    }
+
+    private static Map<String, String> query(final String raw) throws UnsupportedEncodingException {
+        final Map<String, String> retVal = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return retVal;
+        }
+        for (final String pair : raw.split("&")) {
+            final int eq = pair.indexOf('=');
+            final String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            retVal.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return retVal;
+    }
+
+    private static long number(final Map<String, String> query, final String key, final long min, final long max) {
+        final String value = query.get(key);
+        try {
+            final long retVal = Long.parseLong(value);
+            if (retVal < min || retVal > max) {
+                throw new IllegalArgumentException(key + " must be within " + min + " and " + max + " but was " + value);
+            }
+            return retVal;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(key + " needs a number but was " + value);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package puzzle;
+
+import java.util.Arrays;
+
+import static puzzle.BitBoard.ALL_DIGITS;
+import static puzzle.BitBoard.CELLS;
+
+/**
+ * solver for variant rule sets. every cell keeps an explicit candidate mask and a placement
+ * removes the digit from the peers of the cell as compiled by the RuleSet. propagation fills
+ * naked singles and hidden singles of every unit, and narrows the cells of every killer cage
+ * to the digits that still appear in some combination reaching the cage sum. the search
+ * branches on the empty cell with the fewest candidates and restores a saved copy of the
+ * state per depth, allocated once and reused.
+ *
+ * classic puzzles are faster on SearchEngine, Solver.solve(byte[], RuleSet) picks the engine.
+ * an instance is not thread safe.
+ */
+public final class VariantEngine {
+    /* sum of the digits of every digit mask */
+    private final static int[] MASK_SUM = new int[ALL_DIGITS + 1];
+
+    private final RuleSet rules;
+    private final byte[] cells = new byte[CELLS];
+    private final int[] candidates = new int[CELLS];
+    private final byte[][] savedCells = new byte[CELLS + 1][];
+    private final int[][] savedCandidates = new int[CELLS + 1][];
+    private final byte[] solution = new byte[CELLS];
+    private int filled;
+    private int limit;
+    private int found;
+    private long nodes;
+
+    /**
+     * @param rules rules of the puzzles to solve
+     */
+    public VariantEngine(final RuleSet rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param puzzle 81 digits, 0 for empty cells, filled with the first solution if there is one
+     * @return true if a solution was found
+     */
+    public boolean solve(final byte[] puzzle) {
+        if (countSolutions(puzzle, 1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, puzzle, 0, CELLS);
+        return true;
+    }
+
+    /**
+     * @param puzzle 81 digits, 0 for empty cells, not modified
+     * @param limit stop after this many solutions, 2 is enough for a uniqueness check
+     * @return number of solutions, at most limit
+     */
+    public int countSolutions(final byte[] puzzle, final int limit) {
+        if (puzzle.length != CELLS || !rules.isValid(puzzle)) {
+            return 0;
+        }
+        this.limit = limit;
+        found = 0;
+        nodes = 0;
+        filled = 0;
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(candidates, ALL_DIGITS);
+        for (int i = 0; i < CELLS; i++) {
+            if (puzzle[i] != 0) {
+                if ((candidates[i] & (1 << (puzzle[i] - 1))) == 0) {
+                    return 0;
+                }
+                place(i, puzzle[i]);
+            }
+        }
+        search(0);
+        return found;
+    }
+
+    /**
+     * @return number of branches tried by the last search
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * @return true once limit solutions are found
+     */
+    private boolean search(final int depth) {
+        if (!propagate()) {
+            return false;
+        }
+        if (filled == CELLS) {
+            if (found++ == 0) {
+                System.arraycopy(cells, 0, solution, 0, CELLS);
+            }
+            return found >= limit;
+        }
+        int cell = -1;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] == 0 && (cell < 0 || Integer.bitCount(candidates[i]) < Integer.bitCount(candidates[cell]))) {
+                cell = i;
+            }
+        }
+        if (savedCells[depth] == null) {
+            savedCells[depth] = new byte[CELLS];
+            savedCandidates[depth] = new int[CELLS];
+        }
+        System.arraycopy(cells, 0, savedCells[depth], 0, CELLS);
+        System.arraycopy(candidates, 0, savedCandidates[depth], 0, CELLS);
+        final int savedFilled = filled;
+        int mask = candidates[cell];
+        while (mask != 0) {
+            final int bit = mask & -mask;
+            mask ^= bit;
+            nodes++;
+            place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+            if (search(depth + 1)) {
+                return true;
+            }
+            System.arraycopy(savedCells[depth], 0, cells, 0, CELLS);
+            System.arraycopy(savedCandidates[depth], 0, candidates, 0, CELLS);
+            filled = savedFilled;
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the puzzle cannot be solved anymore
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < CELLS; i++) {
+                if (cells[i] != 0) {
+                    continue;
+                }
+                final int mask = candidates[i];
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    place(i, Integer.numberOfTrailingZeros(mask) + 1);
+                    changed = true;
+                }
+            }
+            for (final int[] unit : rules.units) {
+                int placed = 0;
+                int once = 0;
+                int twice = 0;
+                for (final int i : unit) {
+                    if (cells[i] != 0) {
+                        placed |= 1 << (cells[i] - 1);
+                    } else {
+                        twice |= once & candidates[i];
+                        once |= candidates[i];
+                    }
+                }
+                if ((once | placed) != ALL_DIGITS) {
+                    return false;
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    final int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    final int cell = find(unit, bit);
+                    if (cell < 0) {
+                        return false;
+                    }
+                    place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                    changed = true;
+                }
+            }
+            for (int c = 0; c < rules.cages.length; c++) {
+                final int result = narrowCage(c);
+                if (result < 0) {
+                    return false;
+                }
+                changed |= result > 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * keep only the candidates that are part of a digit combination reaching the cage sum
+     * @return -1 if no combination is left, 1 if candidates were removed and 0 otherwise
+     */
+    private int narrowCage(final int cage) {
+        int sum = rules.cageSums[cage];
+        int open = 0;
+        int allowed = 0;
+        for (final int i : rules.cages[cage]) {
+            if (cells[i] != 0) {
+                sum -= cells[i];
+            } else {
+                open++;
+                allowed |= candidates[i];
+            }
+        }
+        if (open == 0) {
+            return sum == 0 ? 0 : -1;
+        }
+        /* union of every subset of the allowed digits with open digits and the right sum */
+        int possible = 0;
+        for (int subset = allowed; subset != 0; subset = (subset - 1) & allowed) {
+            if (MASK_SUM[subset] == sum && Integer.bitCount(subset) == open) {
+                possible |= subset;
+            }
+        }
+        if (possible == 0) {
+            return -1;
+        }
+        int retVal = 0;
+        for (final int i : rules.cages[cage]) {
+            if (cells[i] == 0 && (candidates[i] & ~possible) != 0) {
+                candidates[i] &= possible;
+                retVal = 1;
+            }
+        }
+        return retVal;
+    }
+
+    private void place(final int cell, final int digit) {
+        final int bit = 1 << (digit - 1);
+        cells[cell] = (byte) digit;
+        candidates[cell] = 0;
+        filled++;
+        for (final int peer : rules.peers[cell]) {
+            candidates[peer] &= ~bit;
+        }
+    }
+
+    private int find(final int[] unit, final int bit) {
+        for (final int i : unit) {
+            if ((candidates[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static {
+        for (int mask = 1; mask <= ALL_DIGITS; mask++) {
+            final int low = Integer.numberOfTrailingZeros(mask);
+            MASK_SUM[mask] = MASK_SUM[mask & (mask - 1)] + low + 1;
+        }
+    }
+}
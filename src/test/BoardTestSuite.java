@@ -1,39 +1,108 @@
-package test;
-
-import junit.framework.TestCase;
-import puzzle.Board;
-
-
-public class BoardTestSuite extends TestCase {
-
-    public BoardTestSuite (final String str) {
-        super(str);
-    }
-
-    public void testInsertValue() throws Exception {
-        final Board board = getEmptyBoard();
-        assertTrue("setting row 0, col 0 to 1", board.insert('1', 0, 0));
-        assertFalse("row is already set. ", board.insert('1', 0, 0));
-        assertFalse("row already contains 1", board.insert('1', 0, 8));
-        assertFalse("col already contains 1", board.insert('1', 8, 0));
-        assertFalse("block already contains 1", board.insert('1', 2, 2));
-        assertTrue("insert 1 into new block", board.insert('1', 3, 3));
-        assertFalse("cell 3,3 already contains 1", board.insert('1', 3, 3));
-        assertFalse("block already contains 1", board.insert('1', 4, 4));
-        assertFalse("row already contains 1", board.insert('1', 3, 5));
-        assertFalse("col already contains 1", board.insert('1', 5, 3));
-    }
-
-    public void testIsSolved() throws Exception{
-        final Board solvedBoard = Board.createBoard(true);
-        assertTrue("board should be solved", solvedBoard.isSolved());
-
-        final Board unsolvedBoard = Board.createBoard(false);
-        assertFalse("board should be unsolved", unsolvedBoard.isSolved());
-    }
-
-    private Board getEmptyBoard() throws Exception {
-        Board board = new Board();
-        return board;
-    }
-}
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+
+import java.util.Arrays;
+
+
+public class BoardTestSuite extends TestCase {
+
+    public BoardTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testInsertValue() throws Exception {
+        final Board board = getEmptyBoard();
+        assertTrue("setting row 0, col 0 to 1", board.insert('1', 0, 0));
+        assertFalse("row is already set. ", board.insert('1', 0, 0));
+        assertFalse("row already contains 1", board.insert('1', 0, 8));
+        assertFalse("col already contains 1", board.insert('1', 8, 0));
+        assertFalse("block already contains 1", board.insert('1', 2, 2));
+        assertTrue("insert 1 into new block", board.insert('1', 3, 3));
+        assertFalse("cell 3,3 already contains 1", board.insert('1', 3, 3));
+        assertFalse("block already contains 1", board.insert('1', 4, 4));
+        assertFalse("row already contains 1", board.insert('1', 3, 5));
+        assertFalse("col already contains 1", board.insert('1', 5, 3));
+    }
+
+    public void testClearAndOverwrite() throws Exception {
+        final Board board = getEmptyBoard();
+        assertTrue("setting row 0, col 0 to 1", board.insert('1', 0, 0));
+        assertTrue("overwrite 1 with 2", board.insert('2', 0, 0));
+        assertTrue("1 is free again in row 0", board.insert('1', 0, 8));
+        assertTrue("clearing a cell is always allowed", board.insert(' ', 0, 8));
+        assertTrue("1 is free again after clearing", board.insert('1', 0, 7));
+        assertFalse("only 1 - 9 are valid entries", board.insert('0', 1, 1));
+        assertEquals(Character.valueOf('2'), board.getCellValue(0, 0));
+        assertEquals(Character.valueOf(' '), board.getCellValue(0, 8));
+    }
+
+    public void testIsSolved() throws Exception{
+        final Board solvedBoard = Board.createBoard(true);
+        assertTrue("board should be solved", solvedBoard.isSolved());
+
+        final Board unsolvedBoard = Board.createBoard(false);
+        assertFalse("board should be unsolved", unsolvedBoard.isSolved());
+    }
+
+    public void testEmptyCellsArePerBoard() throws Exception {
+        final Board puzzle = Board.createBoard(false);
+        final int[] before = puzzle.getEmptyCellIndexes();
+        assertEquals(before.length, puzzle.getEmptyCells().size());
+        assertTrue("generated puzzle has empty cells", before.length > 0);
+
+        //boards created on other threads must not touch the empty cells of this one
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    try {
+                        Board.createBoard(j % 2 == 0);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(Arrays.equals(before, puzzle.getEmptyCellIndexes()));
+        for (final int index : before) {
+            assertTrue(puzzle.isEmptyCell(index / 9, index % 9));
+            assertEquals(Character.valueOf(' '), puzzle.getCellValue(index / 9, index % 9));
+        }
+        assertEquals("solved board has no empty cells", 0, Board.createBoard(true).getEmptyCellIndexes().length);
+    }
+
+    public void testCharacterGridChecks() throws Exception {
+        final Board puzzle = Board.createBoard(false);
+        final Character[][] grid = puzzle.getTwoDBoard();
+        for (int row = 0; row < Board.LENGTH; row++) {
+            for (int col = 0; col < Board.LENGTH; col++) {
+                for (char digit = '1'; digit <= '9' && grid[row][col] == ' '; digit++) {
+                    assertEquals(puzzle.isValidEntry(digit, row, col), Board.isValidEntry(grid, digit, row, col));
+                }
+                assertFalse("only 1 - 9 are valid entries", Board.isValidEntry(grid, ' ', row, col));
+            }
+            assertEquals(row / 3 * 3, Board.getBlockCoordinate(row));
+        }
+
+        final Character[][] solved = Board.createBoard(true).getTwoDBoard();
+        assertTrue(Board.isSolved(solved));
+        //swapping two cells of a row keeps the row valid but breaks the columns
+        final Character first = solved[0][0];
+        solved[0][0] = solved[0][1];
+        solved[0][1] = first;
+        assertFalse(Board.isSolved(solved));
+        solved[0][1] = ' ';
+        assertFalse(Board.isSolved(solved));
+    }
+
+    private Board getEmptyBoard() throws Exception {
+        Board board = new Board();
+        return board;
+    }
+}
@@ -0,0 +1,103 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.CommandLine;
+import puzzle.PackedPuzzleFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+public class CommandLineTestSuite extends TestCase {
+
+    private static final String EASY =
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String SOLVED =
+            "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    /* two 5s in the first row */
+    private static final String BROKEN =
+            "553020600900305001001806400008102900700000008006708200002609500800203009005010300";
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    public CommandLineTestSuite(final String str) {
+        super(str);
+    }
+
+    private int run(final String input, final String... args) {
+        out.reset();
+        err.reset();
+        return CommandLine.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private String[] lines() {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+    }
+
+    public void testSolve() {
+        final String input = EASY + "\n" + BROKEN + "\n" + EASY + "\n";
+        assertEquals(0, run(input, "solve", "--threads", "2"));
+        assertEquals(3, lines().length);
+        assertEquals(SOLVED, lines()[0]);
+        assertEquals(BROKEN.replace('0', '.') + " invalid", lines()[1]);
+        assertEquals(SOLVED, lines()[2]);
+        final String summary = new String(err.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(summary, summary.startsWith("solve: 3 puzzles"));
+        assertTrue(summary, summary.contains("solved 2") && summary.contains("invalid 1") && summary.contains("p99"));
+
+        assertEquals(0, run(input, "solve", "--format", "csv", "--quiet"));
+        assertEquals("puzzle,solution,status,micros,nodes", lines()[0]);
+        assertTrue(lines()[1].startsWith(EASY.replace('0', '.') + "," + SOLVED + ",solved,"));
+        assertEquals(0, err.size());
+    }
+
+    public void testValidateAndRate() {
+        final String multiple = "1" + new String(new char[80]).replace('\0', '.');
+        assertEquals(0, run(EASY + "\n" + BROKEN + "\n" + multiple + "\n", "validate", "-q"));
+        assertTrue(lines()[0].endsWith(" valid"));
+        assertTrue(lines()[1].endsWith(" invalid"));
+        assertTrue(lines()[2].endsWith(" multiple"));
+
+        assertEquals(0, run(EASY + "\n", "rate", "-q"));
+        assertTrue(lines()[0], lines()[0].startsWith(EASY.replace('0', '.') + " "));
+        assertEquals("a completed grid is valid input", 0, run(SOLVED + "\n", "rate", "-q"));
+        assertTrue(lines()[0], lines()[0].endsWith(" 0.0 solved"));
+    }
+
+    public void testGenerate() throws Exception {
+        assertEquals(0, run("", "generate", "-n", "3", "-d", "easy", "--seed", "7", "-t", "3", "-q"));
+        final String[] first = lines();
+        assertEquals(3, first.length);
+        assertEquals(0, run("", "generate", "-n", "3", "-d", "easy", "--seed", "7", "-t", "1", "-q"));
+        assertEquals("same seed, same puzzles on any number of threads", String.join("\n", first), String.join("\n", lines()));
+
+        final Path file = Files.createTempFile("generated", ".sdkp");
+        try {
+            assertEquals(0, run("", "generate", "-n", "5", "-f", "packed", "-o", file.toString(), "-q"));
+            try (PackedPuzzleFile packed = new PackedPuzzleFile(file)) {
+                assertEquals(5, packed.size());
+            }
+            assertEquals(0, run("", "validate", "-q", file.toString()));
+            assertEquals(5, lines().length);
+            for (final String line : lines()) {
+                assertTrue(line, line.endsWith(" valid"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testUsageErrors() {
+        assertEquals(2, run("", "unsolve"));
+        assertEquals(2, run("", "solve", "--threads"));
+        assertEquals(2, run("", "solve", "--threads", "0"));
+        assertEquals(2, run("", "generate", "--format", "packed"));
+        assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("usage:"));
+    }
+}
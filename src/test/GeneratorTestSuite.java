@@ -0,0 +1,57 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.Generator;
+import puzzle.Solver;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+
+public class GeneratorTestSuite extends TestCase {
+
+    public GeneratorTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testPuzzlesHaveUniqueSolution() throws Exception {
+        final Generator generator = new Generator(new Random(42));
+        final Solver solver = new Solver();
+        for (final Generator.Difficulty difficulty : Generator.Difficulty.values()) {
+            for (int i = 0; i < 20; i++) {
+                final Board puzzle = generator.generate(difficulty);
+                final int clues = 81 - puzzle.getEmptyCellIndexes().length;
+                assertEquals("unique solution expected", 1, solver.forEachSolution(puzzle, 2, null));
+                assertTrue(difficulty + " has too many clues: " + clues, clues <= Math.max(difficulty.getClues(), 30));
+                if (difficulty != Generator.Difficulty.EXPERT) {
+                    assertEquals("the tier's clue count is reached", difficulty.getClues(), clues);
+                }
+                assertTrue(difficulty + " has too few clues: " + clues, clues >= Math.max(difficulty.getClues(), 17));
+            }
+        }
+    }
+
+    public void testSolvedGridsAreValidAndVaried() throws Exception {
+        final Generator generator = new Generator(new Random(7));
+        final Set<String> grids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final Board grid = Board.fromCells(generator.solvedGrid().toBytes());
+            assertTrue(Board.isSolved(grid.getTwoDBoard()));
+            grids.add(Arrays.deepToString(grid.getTwoDBoard()));
+        }
+        assertEquals("grids should not repeat", 100, grids.size());
+    }
+
+    public void testSeedIsReproducible() throws Exception {
+        final Board first = new Generator(new Random(3)).generate(Generator.Difficulty.HARD);
+        final Board second = new Generator(new Random(3)).generate(Generator.Difficulty.HARD);
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                assertEquals(first.getCellValue(row, col), second.getCellValue(row, col));
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.CancellationToken;
+import puzzle.Geometry;
+import puzzle.Grid;
+import puzzle.SolveLimits;
+import puzzle.SolveResult;
+import puzzle.Solver;
+
+import java.util.Random;
+
+
+public class GridTestSuite extends TestCase {
+
+    public GridTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testParseAndValidate() throws Exception {
+        final Grid grid = Grid.parse("1.|..\n..|1.\n--+--\n.1|..\n..|.4");
+        assertEquals(2, grid.getGeometry().getBoxSize());
+        assertEquals(1, grid.get(0, 0));
+        assertEquals(4, grid.get(3, 3));
+        assertFalse("1 is used in the row", grid.isValidEntry('1', 0, 3));
+        assertFalse("1 is used in the box", grid.isValidEntry('1', 1, 1));
+        assertFalse("5 does not exist on a 4x4 board", grid.isValidEntry('5', 0, 1));
+        assertTrue(grid.isValidEntry('2', 0, 1));
+        assertTrue(grid.isValidEntry('.', 0, 0));
+        try {
+            Grid.parse("11..............");
+            fail("duplicate in a row should be rejected");
+        } catch (Exception ex) {
+            //expected
+        }
+    }
+
+    public void testNineByNineMatchesBoard() throws Exception {
+        final String puzzle = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+        final Grid grid = Grid.parse(puzzle);
+        final Board board = SolverTestSuite.toBoard(puzzle);
+        final Solver solver = new Solver();
+        assertTrue(solver.solve(grid));
+        solver.solve(board);
+        for (int row = 0; row < Board.LENGTH; row++) {
+            for (int col = 0; col < Board.LENGTH; col++) {
+                assertEquals(board.getCellValue(row, col).charValue(), grid.getGeometry().toChar(grid.get(row, col)));
+            }
+        }
+    }
+
+    public void testSolveLargeBoards() throws Exception {
+        for (int box = Geometry.MIN_BOX; box <= Geometry.MAX_BOX; box++) {
+            final Grid puzzle = randomPuzzle(Geometry.of(box), new Random(box), 0.55);
+            final Grid grid = Grid.parse(puzzle.toString());
+            assertTrue("no solution for " + box, new Solver().solve(grid));
+            assertTrue(grid.isSolved());
+            assertSolutionOf(puzzle, grid);
+        }
+    }
+
+    public void testUnsolvableBoardIsUnchanged() throws Exception {
+        /* r1c4 has no candidate, 1 and 2 are in its row and 3 and 4 in its column */
+        final Grid grid = Grid.parse("12..\n....\n...3\n...4");
+        final String before = grid.toString();
+        assertFalse(new Solver().solve(grid));
+        assertEquals(before, grid.toString());
+    }
+
+    public void testSolveLimitsStopLargeBoards() throws Exception {
+        final Grid grid = new Grid(Geometry.of(Geometry.MAX_BOX));
+        final String before = grid.toString();
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertEquals(SolveResult.Status.CANCELLED, new Solver().solve(grid, SolveLimits.NONE.withToken(token)));
+        assertEquals("stopped searches leave the board unchanged", before, grid.toString());
+        assertEquals(SolveResult.Status.TIMED_OUT, new Solver().solve(grid, SolveLimits.NONE.withMaxNodes(10)));
+        assertEquals(before, grid.toString());
+        assertEquals(SolveResult.Status.UNSOLVABLE,
+                new Solver().solve(Grid.parse("12..\n....\n...3\n...4"), SolveLimits.NONE.withMaxNodes(10)));
+    }
+
+    /**
+     * shuffled pattern grid with a share of its cells cleared
+     */
+    private static Grid randomPuzzle(final Geometry geometry, final Random random, final double empty) {
+        final int box = geometry.getBoxSize();
+        final int size = geometry.getSize();
+        final int[] digits = new int[size];
+        for (int i = 0; i < size; i++) {
+            digits[i] = i + 1;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = digits[i];
+            digits[i] = digits[j];
+            digits[j] = tmp;
+        }
+        final Grid retVal = new Grid(geometry);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (random.nextDouble() >= empty) {
+                    assertTrue(retVal.set(row, col, digits[(row * box + row / box + col) % size]));
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private static void assertSolutionOf(final Grid puzzle, final Grid solution) {
+        final int size = puzzle.getGeometry().getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (puzzle.get(row, col) != 0) {
+                    assertEquals(puzzle.get(row, col), solution.get(row, col));
+                }
+            }
+        }
+    }
+}
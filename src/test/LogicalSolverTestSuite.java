@@ -0,0 +1,109 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.Generator;
+import puzzle.LogicalSolver;
+import puzzle.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static puzzle.Board.LENGTH;
+
+
+public class LogicalSolverTestSuite extends TestCase {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String ESCARGOT = "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..";
+
+    public LogicalSolverTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testEasyPuzzleNeedsOnlySingles() throws Exception {
+        final LogicalSolver.Rating rating = new LogicalSolver().rate(SolverTestSuite.toBoard(EASY));
+        assertTrue(rating.isLogical());
+        assertTrue("rated " + rating, rating.getScore() <= LogicalSolver.Technique.NAKED_SINGLE.getDifficulty());
+        assertTrue(rating.getSteps().isEmpty());
+    }
+
+    public void testCompletedGridNeedsNoSteps() throws Exception {
+        final LogicalSolver.Rating rating = new LogicalSolver().rate(SolverTestSuite.toBoard(
+                "534678912672195348198342567859761423426853791713924856961537284287419635345286179"), true);
+        assertTrue(rating.isSolved());
+        assertTrue(rating.isLogical());
+        assertNull(rating.getHardest());
+        assertEquals(0.0, rating.getScore());
+        assertTrue(rating.getSteps().isEmpty());
+    }
+
+    public void testHardPuzzleNeedsGuessing() throws Exception {
+        final LogicalSolver.Rating rating = new LogicalSolver().rate(SolverTestSuite.toBoard(ESCARGOT), true);
+        assertTrue(rating.isSolved());
+        assertFalse(rating.isLogical());
+        assertEquals(LogicalSolver.Technique.GUESS, rating.getHardest());
+        assertStepsAreSound(ESCARGOT, rating.getSteps());
+    }
+
+    public void testStepsAreSoundAndReplayable() throws Exception {
+        final Generator generator = new Generator(new Random(11));
+        final LogicalSolver solver = new LogicalSolver();
+        final int[] used = new int[LogicalSolver.Technique.values().length];
+        for (final Generator.Difficulty difficulty : Generator.Difficulty.values()) {
+            for (int i = 0; i < 50; i++) {
+                final String puzzle = toLine(generator.generate(difficulty));
+                final LogicalSolver.Rating rating = solver.rate(SolverTestSuite.toBoard(puzzle), true);
+                assertTrue(rating.isSolved());
+                assertStepsAreSound(puzzle, rating.getSteps());
+                for (final LogicalSolver.Technique technique : LogicalSolver.Technique.values()) {
+                    used[technique.ordinal()] += rating.getCount(technique);
+                }
+            }
+        }
+        assertTrue("expected some subsets", used[LogicalSolver.Technique.NAKED_PAIR.ordinal()] > 0);
+        assertTrue("expected some locked candidates", used[LogicalSolver.Technique.POINTING.ordinal()] > 0);
+    }
+
+    public void testUnsolvablePuzzle() throws Exception {
+        /* r1c9 can only be 9 but 9 is already in its column */
+        final String puzzle = "12345678.........9" + "...............................................................";
+        final LogicalSolver.Rating rating = new LogicalSolver().rate(SolverTestSuite.toBoard(puzzle));
+        assertFalse(rating.isSolved());
+    }
+
+    /**
+     * every placement must match the solution, no elimination may remove a solution digit
+     * and replaying all steps must end in the solution
+     */
+    private static void assertStepsAreSound(final String puzzle, final List<LogicalSolver.Step> steps) throws Exception {
+        final Board solution = SolverTestSuite.toBoard(puzzle);
+        new Solver().solve(solution);
+        for (final LogicalSolver.Step step : steps) {
+            if (step.getCell() >= 0) {
+                assertEquals(step.toString(), (char) ('0' + step.getDigit()),
+                        solution.getCellValue(step.getCell() / LENGTH, step.getCell() % LENGTH).charValue());
+            }
+            final int[] cells = step.getEliminationCells();
+            final int[] masks = step.getEliminationMasks();
+            for (int i = 0; i < cells.length; i++) {
+                final int digit = solution.getCellValue(cells[i] / LENGTH, cells[i] % LENGTH) - '0';
+                assertEquals(step.toString(), 0, masks[i] & (1 << (digit - 1)));
+            }
+        }
+        final Board replayed = LogicalSolver.replay(SolverTestSuite.toBoard(puzzle), steps);
+        assertEquals(toLine(solution), toLine(replayed));
+    }
+
+    private static String toLine(final Board board) {
+        final StringBuilder builder = new StringBuilder();
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                final char c = board.getCellValue(row, col);
+                builder.append(c == ' ' ? '.' : c);
+            }
+        }
+        return builder.toString();
+    }
+}
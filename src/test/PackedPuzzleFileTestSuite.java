@@ -0,0 +1,158 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.Generator;
+import puzzle.GridVerifier;
+import puzzle.PackedPuzzleFile;
+import puzzle.PackedPuzzleWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class PackedPuzzleFileTestSuite extends TestCase {
+
+    public PackedPuzzleFileTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testRoundTrip() throws Exception {
+        final Path file = Files.createTempFile("puzzles", ".sdkp");
+        try {
+            final List<Board> boards = new ArrayList<>();
+            try (PackedPuzzleWriter writer = new PackedPuzzleWriter(file)) {
+                for (int i = 0; i < 5000; i++) {
+                    final Board board = Board.createBoard(i % 3 == 0);
+                    boards.add(board);
+                    writer.write(board);
+                }
+                writer.write(new byte[81]);
+                final byte[] bad = new byte[81];
+                bad[40] = 10;
+                try {
+                    writer.write(bad);
+                    fail("10 does not fit a 9x9 cell");
+                } catch (IllegalArgumentException expected) {
+                    //expected
+                }
+                assertEquals(5001, writer.getCount());
+            }
+            assertEquals(16 + 5001 * 41, Files.size(file));
+
+            try (PackedPuzzleFile packed = new PackedPuzzleFile(file)) {
+                assertEquals(5001, packed.size());
+                for (final int n : new int[]{4999, 0, 1, 2500, 4096}) {
+                    final Board read = packed.get(n);
+                    for (int row = 0; row < 9; row++) {
+                        for (int col = 0; col < 9; col++) {
+                            assertEquals(boards.get(n).getCellValue(row, col), read.getCellValue(row, col));
+                        }
+                    }
+                }
+                final byte[] cells = new byte[81];
+                cells[80] = 5;
+                packed.read(5000, cells);
+                assertEquals("last cell uses the high nibble of the last byte", 0, cells[80]);
+                try {
+                    packed.read(5001, cells);
+                    fail("out of range");
+                } catch (IndexOutOfBoundsException expected) {
+                    //expected
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testRejectsOtherFiles() throws Exception {
+        final Path file = Files.createTempFile("puzzles", ".txt");
+        try {
+            Files.write(file, "not a packed file at all".getBytes());
+            try (PackedPuzzleFile packed = new PackedPuzzleFile(file)) {
+                fail("bad magic should be rejected " + packed.size());
+            } catch (IOException expected) {
+                //expected
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testVerifyGrids() throws Exception {
+        final Random random = new Random(3);
+        final Generator generator = new Generator(random);
+        final int count = 2000;
+        final byte[] records = new byte[count * PackedPuzzleFile.RECORD_SIZE];
+        final int[] expected = new int[count];
+        for (int n = 0; n < count; n++) {
+            final byte[] cells = generator.solvedGrid().toBytes();
+            //a quarter stays valid, the others get a random digit 0 - 15 in a random cell
+            if (n % 4 != 0) {
+                cells[random.nextInt(81)] = (byte) random.nextInt(16);
+            }
+            expected[n] = firstBadUnit(cells);
+            PackedPuzzleFile.pack(cells, records, n * PackedPuzzleFile.RECORD_SIZE);
+        }
+        final int[] results = new int[count];
+        int valid = 0;
+        for (final int result : expected) {
+            valid += result == GridVerifier.VALID ? 1 : 0;
+        }
+        assertEquals(valid, GridVerifier.verifyAll(records, 0, count, results));
+        for (int n = 0; n < count; n++) {
+            assertEquals("grid " + n, expected[n], results[n]);
+            assertEquals(expected[n], GridVerifier.verify(records, n * PackedPuzzleFile.RECORD_SIZE));
+        }
+        assertEquals("row 1", GridVerifier.unitName(0));
+        assertEquals("column 9", GridVerifier.unitName(17));
+        assertEquals("box 5", GridVerifier.unitName(22));
+
+        final Path file = Files.createTempFile("grids", ".sdkp");
+        try {
+            //the writer rejects digits above 9, so the records go after a header of its own
+            new PackedPuzzleWriter(file).close();
+            Files.write(file, records, StandardOpenOption.APPEND);
+            try (PackedPuzzleFile packed = new PackedPuzzleFile(file)) {
+                final int[] fromFile = new int[count - 100];
+                int validFromFile = 0;
+                for (int n = 100; n < count; n++) {
+                    validFromFile += expected[n] == GridVerifier.VALID ? 1 : 0;
+                }
+                assertEquals(validFromFile, packed.verify(100, count - 100, fromFile));
+                for (int n = 100; n < count; n++) {
+                    assertEquals(expected[n], fromFile[n - 100]);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * plain reference, the first unit without each of 1 - 9
+     */
+    private static int firstBadUnit(final byte[] cells) {
+        for (int unit = 0; unit < 27; unit++) {
+            int digits = 0;
+            for (int k = 0; k < 9; k++) {
+                final int row = unit < 9 ? unit : unit < 18 ? k : (unit - 18) / 3 * 3 + k / 3;
+                final int col = unit < 9 ? k : unit < 18 ? unit - 9 : (unit - 18) % 3 * 3 + k % 3;
+                final int digit = cells[row * 9 + col];
+                if (digit >= 1 && digit <= 9) {
+                    digits |= 1 << (digit - 1);
+                }
+            }
+            if (digits != 0x1FF) {
+                return unit;
+            }
+        }
+        return GridVerifier.VALID;
+    }
+}
@@ -0,0 +1,81 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.LogicalSolver;
+import puzzle.PlaySession;
+
+import static puzzle.Board.LENGTH;
+
+
+public class PlaySessionTestSuite extends TestCase {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String SOLVED = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String ESCARGOT = "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..";
+
+    public PlaySessionTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testCandidatesAndConflicts() throws Exception {
+        final PlaySession session = new PlaySession(SolverTestSuite.toBoard(EASY));
+        assertTrue(session.isGiven(0, 2));
+        assertFalse("givens can not be changed", session.set(0, 2, 4));
+        //row 0 has 2, 3 and 6, column 0 has 7, 8 and 9, the box has 1, 3 and 9
+        assertEquals(0b000010000 | 0b000001000, session.getCandidates(0, 0));
+
+        assertTrue(session.set(0, 0, 3));
+        assertTrue(session.isConflict(0, 0));
+        assertTrue("the given is marked too", session.isConflict(0, 2));
+        assertTrue(session.hasConflicts());
+        assertFalse(session.isSolvable());
+        assertEquals(0, session.getCandidates(0, 0));
+
+        assertTrue(session.set(0, 0, 0));
+        assertFalse(session.hasConflicts());
+        assertFalse(session.isConflict(0, 2));
+        assertTrue(session.isSolvable());
+    }
+
+    public void testSolvableKeepsUpWithEntries() throws Exception {
+        final PlaySession session = new PlaySession(SolverTestSuite.toBoard(EASY));
+        assertTrue(session.isSolvable());
+        assertTrue(session.set(0, 0, 4));
+        assertTrue("the entry agrees with the known solution", session.isSolvable());
+        assertTrue(session.set(0, 0, 5));
+        assertFalse("no conflict but the wrong digit", session.hasConflicts());
+        assertFalse(session.isSolvable());
+        assertNull(session.getHint());
+        assertNull(session.getSolution());
+        assertTrue(session.set(0, 0, 4));
+        assertTrue(session.isSolvable());
+        assertEquals(SolverTestSuite.toBoard(SOLVED).getTwoDBoard()[4][4], session.getSolution().getTwoDBoard()[4][4]);
+    }
+
+    public void testHintsSolveThePuzzle() throws Exception {
+        for (final String puzzle : new String[]{EASY, ESCARGOT}) {
+            final Board board = SolverTestSuite.toBoard(puzzle);
+            final PlaySession session = new PlaySession(board);
+            int empty = 0;
+            for (int i = 0; i < LENGTH * LENGTH; i++) {
+                empty += session.get(i / LENGTH, i % LENGTH) == 0 ? 1 : 0;
+            }
+            for (int k = 0; k < empty; k++) {
+                final LogicalSolver.Step hint = session.getHint();
+                assertNotNull(hint);
+                assertTrue(hint.getCell() >= 0);
+                final int row = hint.getCell() / LENGTH;
+                final int col = hint.getCell() % LENGTH;
+                assertEquals("hints are empty cells", 0, session.get(row, col));
+                assertTrue(session.set(row, col, hint.getDigit()));
+                assertTrue(session.isSolvable());
+            }
+            assertTrue(session.isSolved());
+            assertNull(session.getHint());
+        }
+        final PlaySession session = new PlaySession(SolverTestSuite.toBoard(EASY));
+        assertEquals("the first hint of an easy puzzle is a single",
+                LogicalSolver.Technique.HIDDEN_SINGLE, session.getHint().getTechnique());
+    }
+}
@@ -0,0 +1,67 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Board;
+import puzzle.PuzzleReader;
+import puzzle.Solver;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+public class PuzzleReaderTestSuite extends TestCase {
+
+    private static final String LINE =
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..";
+
+    public PuzzleReaderTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testMixedFormats() throws Exception {
+        final String input = "# header line\r\n"
+                + LINE + "\r\n"
+                + "7 3      \n  46 329 \n 6   27  \n   391  5\n  5   8  \n2        \n  25   7 \n     95  \n      9 3\n"
+                + "anything after this would be ignored.\n"
+                + LINE.replace('.', '0') + ",solution follows\n"
+                + "\n"
+                + LINE;
+        final List<Board> boards = read(input).stream().collect(Collectors.toList());
+        assertEquals(4, boards.size());
+        assertEquals(Character.valueOf('1'), boards.get(0).getCellValue(0, 0));
+        assertEquals(Character.valueOf(' '), boards.get(0).getCellValue(0, 1));
+        assertEquals(Character.valueOf('7'), boards.get(1).getCellValue(0, 0));
+        assertEquals(Character.valueOf('3'), boards.get(1).getCellValue(8, 8));
+        assertTrue(boards.get(1).isEmptyCell(0, 1));
+        for (final int i : new int[]{0, 2, 3}) {
+            assertTrue(Board.isSolved(solve(boards.get(i)).getTwoDBoard()));
+        }
+    }
+
+    public void testInvalidPuzzlesAreSkipped() throws Exception {
+        final PuzzleReader reader = read("11" + LINE.substring(2) + "\n" + LINE + "\n");
+        assertTrue(reader.hasNext());
+        assertEquals(Character.valueOf('3'), reader.next().getCellValue(1, 1));
+        assertFalse(reader.hasNext());
+        assertEquals(1, reader.getSkippedCount());
+    }
+
+    public void testIncompleteBlockIsDropped() throws Exception {
+        final PuzzleReader reader = read("7 3      \n  46 329 \nnot a row\n" + LINE);
+        final byte[] cells = new byte[81];
+        assertTrue(reader.read(cells));
+        assertEquals(1, cells[0]);
+        assertFalse(reader.read(cells));
+    }
+
+    private static PuzzleReader read(final String input) {
+        return new PuzzleReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static Board solve(final Board board) {
+        new Solver().solve(board);
+        return board;
+    }
+}
@@ -0,0 +1,124 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.SolveLimits;
+import puzzle.SolverServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+public class SolverServerTestSuite extends TestCase {
+
+    private static final String EASY =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String SOLVED =
+            "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+    private SolverServer server;
+
+    public SolverServerTestSuite(final String str) {
+        super(str);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new SolverServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 1, SolveLimits.NONE);
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() {
+        server.close();
+    }
+
+    /**
+     * @return status code and body separated by a blank
+     */
+    private String call(final String method, final String path, final String type, final String body) throws IOException {
+        final URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + path);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (!type.isEmpty()) {
+                connection.setRequestProperty("Accept", type);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", type);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            final int status = connection.getResponseCode();
+            final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int read; in != null && (read = in.read(buffer)) >= 0; ) {
+                bytes.write(buffer, 0, read);
+            }
+            return status + " " + new String(bytes.toByteArray(), StandardCharsets.UTF_8).trim();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    public void testEndpoints() throws Exception {
+        assertEquals("200 " + SOLVED, call("POST", "/solve", "text/plain", EASY + "\n"));
+        final String single = call("POST", "/solve", "application/json", "{\"puzzle\": \"" + EASY + "\"}");
+        assertTrue(single, single.startsWith("200 {\"puzzle\":\"" + EASY + "\",\"status\":\"solved\",\"solution\":\"" + SOLVED + "\""));
+        final String batch = call("POST", "/solve", "application/json", "[\"" + EASY + "\", \"11\"]");
+        assertEquals(batch, "400 {\"error\":\"not a puzzle: 11\"}", batch);
+
+        final String multiple = "1" + new String(new char[80]).replace('\0', '.');
+        assertEquals("200 " + EASY + " valid\n" + multiple + " multiple",
+                call("POST", "/validate", "text/plain", EASY + "\n" + multiple + "\n"));
+        assertEquals("200 " + multiple + " 100 limit", call("POST", "/count?limit=100", "text/plain", multiple));
+        assertEquals("200 " + EASY + " 1 complete", call("POST", "/count?limit=100", "text/plain", EASY));
+
+        final String generated = call("GET", "/generate?count=3&difficulty=easy&seed=5", "", null);
+        assertEquals(generated, 3, generated.split("\n").length);
+        assertEquals(generated, call("GET", "/generate?count=3&difficulty=easy&seed=5", "", null));
+        assertTrue(call("GET", "/generate", "application/json", null).startsWith("200 {\"puzzle\":"));
+
+        assertTrue(call("GET", "/solve", "", null).startsWith("405 "));
+        assertTrue(call("POST", "/solve?timeout=x", "text/plain", EASY).startsWith("400 "));
+        assertTrue(call("POST", "/solve", "text/plain", "nothing").startsWith("400 "));
+        assertTrue(call("GET", "/nothing", "", null).startsWith("404 "));
+        assertEquals(0, server.getInFlight());
+    }
+
+    public void testRejectsDeeplyNestedJson() throws Exception {
+        final String nested = new String(new char[200000]).replace('\0', '[');
+        final String response = call("POST", "/solve", "application/json", nested);
+        assertTrue(response, response.startsWith("400 {\"error\":\"bad json, nested too deeply"));
+        assertEquals("the server still answers", "200 " + SOLVED, call("POST", "/solve", "text/plain", EASY));
+    }
+
+    public void testShedsLoadWhenSaturated() throws Exception {
+        try (Socket stalled = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            /* holds the only admission slot while the server waits for the body */
+            stalled.getOutputStream().write(("POST /solve HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Type: text/plain\r\nContent-Length: 100\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            stalled.getOutputStream().flush();
+            for (int i = 0; i < 500 && server.getInFlight() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, server.getInFlight());
+            assertEquals("503 server busy", call("POST", "/solve", "text/plain", EASY));
+            assertEquals(1, server.getRejectedCount());
+        }
+        for (int i = 0; i < 500 && server.getInFlight() == 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("200 " + SOLVED, call("POST", "/solve", "text/plain", EASY));
+    }
+}
@@ -0,0 +1,383 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.BatchSolver;
+import puzzle.Board;
+import puzzle.CancellationToken;
+import puzzle.CanonicalForm;
+import puzzle.Histogram;
+import puzzle.SolutionCache;
+import puzzle.SolveLimits;
+import puzzle.SolveResult;
+import puzzle.SolveStats;
+import puzzle.Solver;
+import puzzle.SolverMetrics;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static puzzle.Board.LENGTH;
+
+
+public class SolverTestSuite extends TestCase {
+
+    /* "AI Escargot" and two 17 clue puzzles */
+    private static final String[] HARD_PUZZLES = {
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+    };
+
+    /* many solutions behind a huge dead subtree, about a million nodes for the propagation search */
+    private static final String SLOW_PUZZLE =
+            ".....6....59.....82....8....45........3........6..3.54...325..6..................";
+
+    public SolverTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testSolveHardPuzzles() throws Exception {
+        for (final String puzzle : HARD_PUZZLES) {
+            final Board board = toBoard(puzzle);
+            new Solver().solve(board);
+            assertTrue("puzzle should be solved: " + puzzle, board.isSolved());
+            assertTrue("solution should be valid", Board.isSolved(board.getTwoDBoard()));
+            assertGivensKept(puzzle, board);
+        }
+    }
+
+    public void testSolveHardPuzzlesByDancingLinks() throws Exception {
+        for (final String puzzle : HARD_PUZZLES) {
+            final Board board = toBoard(puzzle);
+            new Solver(Solver.Algorithm.DANCING_LINKS).solve(board);
+            assertTrue("puzzle should be solved: " + puzzle, board.isSolved());
+            assertTrue("solution should be valid", Board.isSolved(board.getTwoDBoard()));
+            assertGivensKept(puzzle, board);
+        }
+    }
+
+    public void testSolveHardPuzzlesInParallel() throws Exception {
+        for (final String puzzle : HARD_PUZZLES) {
+            final Board board = toBoard(puzzle);
+            new Solver(Solver.Algorithm.PARALLEL).solve(board);
+            assertTrue("puzzle should be solved: " + puzzle, board.isSolved());
+            assertTrue("solution should be valid", Board.isSolved(board.getTwoDBoard()));
+            assertGivensKept(puzzle, board);
+        }
+    }
+
+    public void testEnumerateSolutions() throws Exception {
+        final Solver solver = new Solver();
+        assertEquals("17 clue puzzle has a unique solution", 1,
+                solver.forEachSolution(toBoard(HARD_PUZZLES[1]), 10, null));
+
+        //remove two clues from a unique puzzle, every solution has to keep the other clues
+        final String open = "." + HARD_PUZZLES[0].substring(1, 6) + "." + HARD_PUZZLES[0].substring(7);
+        final List<Board> solutions = new ArrayList<>();
+        final int count = solver.forEachSolution(toBoard(open), 1000, solutions::add);
+        assertTrue("more than one solution expected", count > 1);
+        assertEquals(count, solutions.size());
+        for (final Board solution : solutions) {
+            assertTrue(Board.isSolved(solution.getTwoDBoard()));
+            assertGivensKept(open, solution);
+        }
+        assertEquals("limit stops the search", 1, solver.forEachSolution(toBoard(open), 1, null));
+        assertEquals("empty board has solutions", 5, solver.forEachSolution(new Board(), 5, null));
+    }
+
+    public void testCountSolutions() throws Exception {
+        final Solver solver = new Solver();
+        for (final String puzzle : HARD_PUZZLES) {
+            assertEquals(1, solver.countSolutions(toBoard(puzzle), 2));
+            assertTrue(solver.hasUniqueSolution(toBoard(puzzle)));
+        }
+        final String open = "." + HARD_PUZZLES[0].substring(1, 6) + "." + HARD_PUZZLES[0].substring(7);
+        final int all = solver.forEachSolution(toBoard(open), 1000, null);
+        assertEquals("same count as dancing links", all, solver.countSolutions(toBoard(open), 1000));
+        assertEquals("stops at the limit", 2, solver.countSolutions(toBoard(open), 2));
+        assertFalse(solver.hasUniqueSolution(toBoard(open)));
+        assertEquals(0, solver.countSolutions(toBoard(open), 0));
+        assertEquals("unsolvable board", 0,
+                solver.countSolutions(toBoard("12345678.........9" + new String(new char[63]).replace('\0', '.')), 2));
+    }
+
+    public void testStreamSolutions() throws Exception {
+        final Solver solver = new Solver();
+        //four clues short of a unique puzzle
+        final String open = "." + HARD_PUZZLES[0].substring(1, 5) + ".." + HARD_PUZZLES[0].substring(7, 80) + ".";
+        final int all = solver.forEachSolution(toBoard(open), 100000, null);
+        assertTrue("more than one solution expected", all > 1);
+
+        final List<Board> sequential = solver.solutions(toBoard(open)).collect(Collectors.toList());
+        assertEquals("same count as dancing links", all, sequential.size());
+        final Set<String> distinct = new HashSet<>();
+        for (final Board solution : sequential) {
+            assertTrue(Board.isSolved(solution.getTwoDBoard()));
+            assertGivensKept(open, solution);
+            distinct.add(Arrays.deepToString(solution.getTwoDBoard()));
+        }
+        assertEquals(all, distinct.size());
+        final Set<String> parallel = solver.solutions(toBoard(open)).parallel()
+                .map(solution -> Arrays.deepToString(solution.getTwoDBoard())).collect(Collectors.toSet());
+        assertEquals("parallel parts cover the tree exactly once", distinct, parallel);
+
+        assertEquals(3, solver.solutions(toBoard(open), 3, SolveLimits.NONE).parallel().count());
+        assertEquals(0, solver.solutions(toBoard(open), 0, SolveLimits.NONE).count());
+        assertTrue("short circuits on an empty board", solver.solutions(new Board()).parallel().findAny().isPresent());
+        assertEquals("solved by propagation alone", 1, solver.solutions(toBoard(
+                "003020600900305001001806400008102900700000008006708200002609500800203009005010300")).count());
+        assertEquals("unsolvable board", 0,
+                solver.solutions(toBoard("12345678.........9" + new String(new char[63]).replace('\0', '.'))).count());
+
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertEquals("cancelled before the first branch", 0,
+                solver.solutions(new Board(), Long.MAX_VALUE, SolveLimits.NONE.withToken(token)).count());
+    }
+
+    public void testBatchSolve() throws Exception {
+        final List<Board> puzzles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            puzzles.add(toBoard(HARD_PUZZLES[i % HARD_PUZZLES.length]));
+        }
+        puzzles.add(toBoard("12345678.........9" + new String(new char[63]).replace('\0', '.')));
+        try (BatchSolver batch = new BatchSolver(3)) {
+            final List<SolveResult> results = batch.solveAll(puzzles);
+            assertEquals(puzzles.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                final SolveResult result = results.get(i);
+                assertEquals("results are in input order", i, result.getIndex());
+                if (i < 50) {
+                    assertTrue(result.isSolved());
+                    assertTrue(Board.isSolved(result.getSolution().getTwoDBoard()));
+                } else {
+                    assertEquals(SolveResult.Status.UNSOLVABLE, result.getStatus());
+                    assertNull(result.getSolution());
+                }
+            }
+
+            final Set<Long> seen = new HashSet<>();
+            batch.solveAll(puzzles.stream(), false, result -> seen.add(result.getIndex()));
+            assertEquals("every puzzle reported once in unordered mode", puzzles.size(), seen.size());
+        }
+    }
+
+    public void testSolveGeneratedPuzzle() throws Exception {
+        final Board board = Board.createBoard(false);
+        new Solver().solve(board);
+        assertTrue("generated puzzle should be solved", board.isSolved());
+    }
+
+    public void testEliminationDoesNotGuess() throws Exception {
+        final Board board = toBoard(HARD_PUZZLES[0]);
+        final int before = countFilled(board);
+        assertTrue(new Solver().solveByElimination(board));
+        assertFalse("AI Escargot needs guessing", board.isSolved());
+        assertTrue("elimination never removes entries", countFilled(board) >= before);
+        assertGivensKept(HARD_PUZZLES[0], board);
+        assertFalse("contradiction is reported",
+                new Solver().solveByElimination(toBoard("12345678.........9" + new String(new char[63]).replace('\0', '.'))));
+    }
+
+    public void testSolveLimits() throws Exception {
+        final Solver solver = new Solver();
+        Board board = toBoard(SLOW_PUZZLE);
+        SolveResult result = solver.solve(board, SolveLimits.NONE.withMaxNodes(1000));
+        assertEquals(SolveResult.Status.TIMED_OUT, result.getStatus());
+        assertTrue("node budget is kept", result.getNodes() <= 1000);
+        assertNull(result.getSolution());
+        assertGivensKept(SLOW_PUZZLE, board);
+        assertEquals("board is unchanged", countFilled(toBoard(SLOW_PUZZLE)), countFilled(board));
+
+        result = solver.solve(toBoard(SLOW_PUZZLE), SolveLimits.NONE.withTimeout(1, TimeUnit.MILLISECONDS));
+        assertEquals(SolveResult.Status.TIMED_OUT, result.getStatus());
+        assertTrue("deadline is checked often", result.getNanos() < TimeUnit.MILLISECONDS.toNanos(200));
+
+        final CancellationToken token = new CancellationToken();
+        final Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            token.cancel();
+        });
+        canceller.start();
+        result = solver.solve(toBoard(SLOW_PUZZLE), SolveLimits.NONE.withToken(token));
+        canceller.join();
+        assertEquals(SolveResult.Status.CANCELLED, result.getStatus());
+        assertTrue("the token sees the progress", token.getNodes() > 0 && token.getNodes() <= result.getNodes());
+        assertEquals("a cancelled token stops the parallel search", SolveResult.Status.CANCELLED,
+                new Solver(Solver.Algorithm.PARALLEL).solve(toBoard(SLOW_PUZZLE),
+                        SolveLimits.NONE.withToken(token)).getStatus());
+
+        for (final Solver.Algorithm algorithm : new Solver.Algorithm[]{Solver.Algorithm.DANCING_LINKS, Solver.Algorithm.DFS}) {
+            board = toBoard(HARD_PUZZLES[0]);
+            result = new Solver(algorithm).solve(board, SolveLimits.NONE.withMaxNodes(10));
+            assertEquals(algorithm + " keeps the node budget", SolveResult.Status.TIMED_OUT, result.getStatus());
+            assertGivensKept(HARD_PUZZLES[0], board);
+        }
+        result = new Solver(Solver.Algorithm.DANCING_LINKS).solve(toBoard(HARD_PUZZLES[0]), SolveLimits.NONE);
+        assertTrue(result.isSolved());
+        assertTrue(Board.isSolved(result.getSolution().getTwoDBoard()));
+        assertTrue(result.getNodes() > 10);
+
+        try (BatchSolver batch = new BatchSolver(2, SolveLimits.NONE.withMaxNodes(1000))) {
+            final List<SolveResult> results = batch.solveAll(Arrays.asList(
+                    toBoard(SLOW_PUZZLE), toBoard(HARD_PUZZLES[0])));
+            assertEquals(SolveResult.Status.TIMED_OUT, results.get(0).getStatus());
+            assertEquals(SolveResult.Status.SOLVED, results.get(1).getStatus());
+        }
+    }
+
+    public void testSolveStatsAndMetrics() throws Exception {
+        final SolverMetrics metrics = new SolverMetrics();
+        for (final Solver.Algorithm algorithm : new Solver.Algorithm[]{Solver.Algorithm.PROPAGATION,
+                Solver.Algorithm.PARALLEL, Solver.Algorithm.DANCING_LINKS}) {
+            final SolveStats stats = new Solver(algorithm, null, metrics)
+                    .solve(toBoard(HARD_PUZZLES[0]), SolveLimits.NONE).getStats();
+            assertTrue(algorithm + " counts nodes", stats.getNodes() > 0);
+            assertTrue(algorithm + " counts guesses", stats.getGuesses() > 0);
+            assertTrue(stats.getBacktracks() <= stats.getNodes());
+            assertTrue(stats.getMaxDepth() > 0 && stats.getMaxDepth() <= stats.getGuesses());
+            assertTrue(stats.getSearchNanos() > 0);
+            if (algorithm != Solver.Algorithm.DANCING_LINKS) {
+                assertTrue(algorithm + " counts propagations", stats.getPropagations() > 0);
+            }
+        }
+        final Solver cached = new Solver(Solver.Algorithm.PROPAGATION, new SolutionCache(4), metrics);
+        cached.solve(toBoard(HARD_PUZZLES[1]), SolveLimits.NONE);
+        assertTrue(cached.solve(toBoard(HARD_PUZZLES[1]), SolveLimits.NONE).getStats().isCached());
+        cached.solve(toBoard(SLOW_PUZZLE), SolveLimits.NONE.withMaxNodes(100));
+
+        assertEquals(6, metrics.getSolveCount());
+        assertEquals(5, metrics.getSolvedCount());
+        assertEquals(1, metrics.getTimedOutCount());
+        assertEquals(1, metrics.getCacheHitCount());
+        assertTrue(metrics.getTimeP50Micros() <= metrics.getTimeP99Micros());
+        assertTrue(metrics.getNodesP99() >= 100);
+
+        metrics.register("test");
+        try {
+            final Object solves = ManagementFactory.getPlatformMBeanServer().getAttribute(
+                    new ObjectName("puzzle:type=SolverMetrics,name=\"test\""), "SolveCount");
+            assertEquals(6L, solves);
+        } finally {
+            metrics.unregister("test");
+        }
+        metrics.reset();
+        assertEquals(0, metrics.getSolveCount());
+        assertEquals(0, metrics.getTimeP99Micros());
+    }
+
+    public void testHistogramPercentiles() {
+        final Histogram histogram = new Histogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertTrue("p50 is within a bucket", Math.abs(histogram.getPercentile(50) - 500) <= 500 / 16);
+        assertTrue("p99 is within a bucket", Math.abs(histogram.getPercentile(99) - 990) <= 990 / 16);
+        assertEquals(1, histogram.getPercentile(0));
+        assertTrue(histogram.getMax() >= 1000);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    public void testCanonicalFormIgnoresSymmetry() throws Exception {
+        final Set<CanonicalForm> forms = new HashSet<>();
+        for (final String puzzle : HARD_PUZZLES) {
+            final CanonicalForm form = CanonicalForm.of(toBoard(puzzle));
+            assertNotNull(form);
+            forms.add(form);
+            assertEquals("equivalent puzzles share the form", form,
+                    CanonicalForm.of(toBoard(transform(puzzle))));
+            assertEquals("the form is canonical itself", form.toString(),
+                    CanonicalForm.of(toBoard(form.toString())).toString());
+            final byte[] restored = form.fromCanonical(form.getCells());
+            for (int i = 0; i < restored.length; i++) {
+                final char given = puzzle.charAt(i);
+                assertEquals("mapping back restores the puzzle", given >= '1' && given <= '9' ? given - '0' : 0, restored[i]);
+            }
+        }
+        assertEquals("distinct puzzles differ", HARD_PUZZLES.length, forms.size());
+        assertNull("too few clues to canonicalize",
+                CanonicalForm.of(toBoard("12345678.........9" + new String(new char[63]).replace('\0', '.'))));
+    }
+
+    public void testSolutionCacheHitsEquivalentPuzzles() throws Exception {
+        final SolutionCache cache = new SolutionCache(2);
+        final Solver solver = new Solver(Solver.Algorithm.PROPAGATION, cache);
+        for (final String puzzle : HARD_PUZZLES) {
+            solver.solve(toBoard(puzzle));
+        }
+        assertEquals(3, cache.getMisses());
+        assertEquals("capacity is kept", 2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getMemoryBytes() > 0);
+
+        final String transformed = transform(HARD_PUZZLES[2]);
+        final Board board = toBoard(transformed);
+        solver.solve(board);
+        assertEquals("transformed puzzle is a hit", 1, cache.getHits());
+        assertTrue("cached solution is mapped back", board.isSolved());
+        assertTrue("solution should be valid", Board.isSolved(board.getTwoDBoard()));
+        assertGivensKept(transformed, board);
+
+        solver.solve(toBoard(HARD_PUZZLES[0]));
+        assertEquals("evicted puzzle is a miss", 4, cache.getMisses());
+        assertEquals(0.2, cache.getHitRate(), 1e-9);
+    }
+
+    /**
+     * @return the puzzle transposed, with bands, rows, stacks and columns reordered and the digits relabeled
+     */
+    private static String transform(final String puzzle) {
+        final int[] rows = {7, 8, 6, 1, 0, 2, 4, 5, 3};
+        final int[] cols = {3, 5, 4, 8, 6, 7, 0, 1, 2};
+        final StringBuilder builder = new StringBuilder();
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                final char ch = puzzle.charAt(cols[col] * LENGTH + rows[row]);
+                builder.append(ch >= '1' && ch <= '9' ? (char) ('1' + (ch - '1') * 2 % LENGTH) : '.');
+            }
+        }
+        return builder.toString();
+    }
+
+    static Board toBoard(final String puzzle) throws Exception {
+        final List<String> lines = new ArrayList<>();
+        for (int row = 0; row < LENGTH; row++) {
+            lines.add(puzzle.substring(row * LENGTH, (row + 1) * LENGTH).replace('.', ' ').replace('0', ' '));
+        }
+        return Board.convertToBoard(lines);
+    }
+
+    private static void assertGivensKept(final String puzzle, final Board board) {
+        for (int i = 0; i < puzzle.length(); i++) {
+            final char given = puzzle.charAt(i);
+            if (given >= '1' && given <= '9') {
+                assertEquals(Character.valueOf(given), board.getCellValue(i / LENGTH, i % LENGTH));
+            }
+        }
+    }
+
+    private static int countFilled(final Board board) {
+        int count = 0;
+        for (int row = 0; row < LENGTH; row++) {
+            for (int col = 0; col < LENGTH; col++) {
+                if (board.getCellValue(row, col) != ' ') {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
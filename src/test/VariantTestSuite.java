@@ -0,0 +1,125 @@
+package test;
+
+import junit.framework.TestCase;
+import puzzle.Rule;
+import puzzle.RuleSet;
+import puzzle.Solver;
+import puzzle.VariantEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class VariantTestSuite extends TestCase {
+
+    /* classic boxes with pairs of cells swapped between neighbouring boxes */
+    private static final String JIGSAW =
+            "000111222" +
+            "000111222" +
+            "000111222" +
+            "334444555" +
+            "333435555" +
+            "333444455" +
+            "666787888" +
+            "666777788" +
+            "666777888";
+
+    public VariantTestSuite (final String str) {
+        super(str);
+    }
+
+    public void testClassicRulesUseTheClassicPath() throws Exception {
+        assertTrue(RuleSet.CLASSIC.isClassic());
+        assertFalse(RuleSet.of(Rule.DIAGONALS).isClassic());
+        final byte[] cells = toCells("003020600900305001001806400008102900700000008006708200002609500800203009005010300");
+        assertTrue(new Solver().solve(cells, RuleSet.CLASSIC));
+        assertTrue(RuleSet.CLASSIC.isSolved(cells));
+    }
+
+    public void testDiagonalAndAntiKnight() throws Exception {
+        for (final RuleSet rules : new RuleSet[] {RuleSet.of(Rule.DIAGONALS), RuleSet.of(Rule.ANTI_KNIGHT),
+                RuleSet.of(Rule.DIAGONALS, Rule.ANTI_KNIGHT)}) {
+            final byte[] grid = new byte[81];
+            assertTrue(new Solver().solve(grid, rules));
+            assertTrue(rules.isSolved(grid));
+        }
+        final byte[] cells = new byte[81];
+        /* r1c1 and r5c5 share the main diagonal only */
+        cells[0] = 1;
+        cells[40] = 1;
+        assertFalse(RuleSet.of(Rule.DIAGONALS).isValid(cells));
+        assertTrue(RuleSet.of(Rule.ANTI_KNIGHT).isValid(cells));
+        /* r1c3 and r2c5 are a knight's move apart */
+        cells[40] = 0;
+        cells[2] = 2;
+        cells[13] = 2;
+        assertTrue(RuleSet.of(Rule.DIAGONALS).isValid(cells));
+        assertFalse(RuleSet.of(Rule.ANTI_KNIGHT).isValid(cells));
+    }
+
+    public void testJigsaw() throws Exception {
+        final int[] regions = new int[81];
+        for (int i = 0; i < 81; i++) {
+            regions[i] = JIGSAW.charAt(i) - '0';
+        }
+        final RuleSet rules = RuleSet.of(Rule.jigsaw(regions));
+        final byte[] grid = new byte[81];
+        assertTrue(new Solver().solve(grid, rules));
+        assertTrue(rules.isSolved(grid));
+        /* r4c3 and r5c1 share a classic box but not a region */
+        final byte[] cells = new byte[81];
+        cells[29] = 5;
+        cells[36] = 5;
+        assertTrue(rules.isValid(cells));
+        assertFalse(RuleSet.CLASSIC.isValid(cells));
+    }
+
+    public void testKillerCagesFromSolvedGrid() throws Exception {
+        final byte[] solution = new byte[81];
+        assertTrue(new Solver().solve(solution, RuleSet.CLASSIC));
+        final List<Rule> cages = new ArrayList<>();
+        final Random random = new Random(5);
+        for (int i = 0; i < 81; ) {
+            final int width = Math.min(1 + random.nextInt(3), 9 - i % 9);
+            final int[] cells = new int[width];
+            int sum = 0;
+            for (int k = 0; k < width; k++) {
+                cells[k] = i + k;
+                sum += solution[i + k];
+            }
+            cages.add(Rule.cage(sum, cells));
+            i += width;
+        }
+        final RuleSet rules = RuleSet.of(cages.toArray(new Rule[0]));
+        final byte[] grid = new byte[81];
+        assertTrue(new Solver().solve(grid, rules));
+        assertTrue(rules.isSolved(grid));
+        assertTrue(new VariantEngine(rules).countSolutions(new byte[81], 2) >= 1);
+    }
+
+    public void testImpossibleCage() throws Exception {
+        /* the only pair adding up to 17 is 8 and 9, and 9 is already in the row */
+        final RuleSet rules = RuleSet.of(Rule.cage(17, 0, 1));
+        final byte[] cells = new byte[81];
+        cells[8] = 9;
+        assertFalse(new Solver().solve(cells, rules));
+        assertEquals(9, cells[8]);
+        assertEquals(0, cells[0]);
+        try {
+            RuleSet.of(Rule.cage(18, 0, 1));
+            fail("two cells cannot add up to 18");
+        } catch (IllegalArgumentException ex) {
+            //expected
+        }
+    }
+
+    private static byte[] toCells(final String puzzle) {
+        final byte[] retVal = new byte[81];
+        for (int i = 0; i < puzzle.length(); i++) {
+            final char ch = puzzle.charAt(i);
+            retVal[i] = (byte) (ch >= '1' && ch <= '9' ? ch - '0' : 0);
+        }
+        return retVal;
+    }
+}